@@ -0,0 +1,301 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import enums.AllMoves;
+
+/**
+ * Solves a cube-representation by beam search over the choices the stages leave open.
+ * CubeAlgorithm takes the first choice in every stage: the first shortest cross, always the cheapest pair next and the
+ * last layer straight from the table. This solver keeps the best partial solutions after every phase (lowest estimated robot time,
+ * see MoveCost) and expands each of them with all alternatives:
+ * start with 0...3 whole cube rotations on the cube or its reflection (see RobotSymmetry), different shortest crosses,
+ * every unsolved pair as next pair and the last layer after each turn of the down face.
+ * When the time budget is used up, remaining phases only follow the first choice of the best partial solution.
+ * The complete solutions of the last beam are improved by RotationPropagation and PeepholeOptimizer before the cheapest one is chosen.
+ */
+public class BeamSolver {
+
+	/**
+	 * Maximum number of different shortest crosses tried for every partial solution.
+	 */
+	private static final int MAXCROSSES = 24;
+
+	/**
+	 * Moves tried before the last layer is solved from the table.
+	 */
+	private static final AllMoves[] LASTLAYERSTART = {AllMoves.N, AllMoves.D, AllMoves.DI, AllMoves.SD};
+
+	/**
+	 * Number of phases: cross, one phase for every pair and last layer.
+	 */
+	private static final int PHASES = PairSolver.PAIRS + 2;
+
+	/**
+	 * Partial solution: copy of the cube with the moves applied so far.
+	 */
+	private static class Node {
+
+		/**
+		 * Cube-representation with recorded solution.
+		 */
+		private final RubiksCube cube = new RubiksCube();
+
+		/**
+		 * True if the cube is the reflection of the original cube.
+		 */
+		private boolean mirrored;
+
+		/**
+		 * Number of moves each stage added to the solution (indexed like CubeAlgorithm.STAGES).
+		 */
+		private final int[] stageLengths = new int[CubeAlgorithm.STAGES.length];
+
+		/**
+		 * Number of moves removed after the last phase (see SolveResult.getSaved()).
+		 */
+		private int saved;
+
+		/**
+		 * Estimated robot time of the solution so far in milliseconds.
+		 */
+		private int cost;
+	}
+
+	/**
+	 * Orders nodes by estimated robot time, then by solution length.
+	 */
+	private static final Comparator<Node> BYCOST = new Comparator<Node>() {
+		@Override
+		public int compare(Node a, Node b) {
+			if (a.cost != b.cost) return (a.cost < b.cost) ? -1 : 1;
+			return a.cube.solutionIndex - b.cube.solutionIndex;
+		}
+	};
+
+	/**
+	 * Number of partial solutions kept after each phase.
+	 */
+	private final int width;
+
+	/**
+	 * Time budget for the search in milliseconds.
+	 */
+	private final long budget;
+
+	/**
+	 * Used for all pair searches.
+	 */
+	private final PairSolver pairSolver = new PairSolver(CrossSolver.getInstance());
+
+	/**
+	 * Used for stages that can't be solved by the tables (e.g. if the last layer table isn't available).
+	 */
+	private final CubeAlgorithm fallback = new CubeAlgorithm();
+
+	/**
+	 * Point of time (System.nanoTime()) when the budget of the current search is used up.
+	 */
+	private long deadline;
+
+	/**
+	 * Constructor that sets size of the beam and time budget.
+	 * @param width Number of partial solutions kept after each phase.
+	 * @param budget Time budget for one search in milliseconds.
+	 */
+	protected BeamSolver(int width, long budget) {
+		this.width = width;
+		this.budget = budget;
+	}
+
+	/**
+	 * Creates a child of a node by applying moves.
+	 * @param parent Node to copy.
+	 * @param moves Moves to apply (N is skipped).
+	 * @param stage Stage the moves are counted for.
+	 * @return New node.
+	 */
+	private static Node child(Node parent, AllMoves[] moves, int stage) {
+		Node node = new Node();
+		node.cube.copyFrom(parent.cube);
+		node.mirrored = parent.mirrored;
+		System.arraycopy(parent.stageLengths, 0, node.stageLengths, 0, node.stageLengths.length);
+		int before = node.cube.solutionIndex;
+		for (AllMoves move : moves) {
+			if (move != AllMoves.N) node.cube.applyMoves(new AllMoves[] {move});
+		}
+		finish(node, stage, before);
+		return node;
+	}
+
+	/**
+	 * Shortens solution of a node and updates its stage length and cost.
+	 * @param node Node after applying moves.
+	 * @param stage Stage the moves are counted for.
+	 * @param before Solution length before the moves.
+	 */
+	private static void finish(Node node, int stage, int before) {
+		node.cube.shortenSolution();
+		node.stageLengths[stage] += node.cube.solutionIndex - before;
+		node.cost = MoveCost.time(node.cube.solution, 0, node.cube.solutionIndex);
+	}
+
+	/**
+	 * Creates a child of a node by applying stages of the fallback algorithm.
+	 * @param parent Node to copy.
+	 * @param from First stage to apply.
+	 * @param to Last stage to apply.
+	 * @return New node.
+	 */
+	private Node fallback(Node parent, int from, int to) {
+		Node node = child(parent, new AllMoves[0], from);
+		for (int stage = from; stage <= to; stage++) {
+			int before = node.cube.solutionIndex;
+			fallback.applyStage(stage, node.cube);
+			finish(node, stage, before);
+		}
+		return node;
+	}
+
+	/**
+	 * Creates the start nodes: 0...3 rotations of the cube and of its reflection.
+	 * @param cube Original cube-representation.
+	 * @return List of nodes.
+	 */
+	private static List<Node> roots(RubiksCube cube) {
+		List<Node> roots = new ArrayList<>();
+		for (int mirror = 0; mirror < 2; mirror++) {
+			Node root = new Node();
+			root.mirrored = (mirror == 1);
+			if (root.mirrored) {RobotSymmetry.mirror(cube, root.cube);}
+			else {
+				root.cube.copyFrom(cube);
+				root.cube.solutionIndex = 0;
+			}
+			root.cube.setRecording(true);
+			for (int r = 0; r < 4; r++) {
+				roots.add(child(root, new AllMoves[] {AllMoves.N}, 0));
+				root.cube.rotate();
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Returns all alternatives of a node for one phase.
+	 * @param node Node to expand.
+	 * @param phase Number of phase.
+	 * @param first If true, only the first alternative is returned.
+	 * @return List of child nodes.
+	 */
+	private List<Node> expand(Node node, int phase, boolean first) {
+		List<Node> children = new ArrayList<>();
+		if (phase == 0) {
+			CubeState state = new CubeState();
+			if (state.fromCube(node.cube)) {
+				for (AllMoves[] moves : CrossSolver.getInstance().solutions(state, first ? 1 : MAXCROSSES)) {
+					children.add(child(node, moves, 0));
+				}
+			}
+			if (children.isEmpty()) {children.add(fallback(node, 0, 0));}
+		}
+		else if (phase <= PairSolver.PAIRS) {
+			boolean unsolved = false;
+			for (int pair = 0; pair < PairSolver.PAIRS; pair++) {
+				if (pairSolver.isSolved(node.cube, pair)) continue;
+				unsolved = true;
+				AllMoves[] moves = pairSolver.solvePair(node.cube, pair);
+				if (moves != null) {children.add(child(node, moves, 1));}
+				if (first && !children.isEmpty()) break;
+			}
+			if (!unsolved) {children.add(node);}
+			else if (children.isEmpty()) {children.add(fallback(node, 1, 2));}
+		}
+		else {
+			LastLayerTable table = LastLayerTable.getInstance();
+			for (int i = 0; table != null && i < (first ? 1 : LASTLAYERSTART.length); i++) {
+				Node child = child(node, new AllMoves[] {LASTLAYERSTART[i]}, 3);
+				int before = child.cube.solutionIndex;
+				if (table.solve(child.cube)) {
+					finish(child, 3, before);
+					children.add(child);
+				}
+			}
+			if (children.isEmpty()) {children.add(fallback(node, 3, CubeAlgorithm.STAGES.length - 1));}
+		}
+		return children;
+	}
+
+	/**
+	 * Sorts nodes by cost and keeps the best ones, nodes with the same cube as a better node are dropped.
+	 * @param nodes All nodes of a phase.
+	 * @param size Maximum number of nodes to keep.
+	 * @return Best nodes.
+	 */
+	private static List<Node> select(List<Node> nodes, int size) {
+		Collections.sort(nodes, BYCOST);
+		List<Node> beam = new ArrayList<>();
+		for (Node node : nodes) {
+			if (beam.size() == size) break;
+			boolean duplicate = false;
+			for (Node kept : beam) {
+				if (kept.mirrored == node.mirrored && kept.cube.getRotations() == node.cube.getRotations()
+						&& Arrays.deepEquals(kept.cube.elements, node.cube.elements)) {duplicate = true; break;}
+			}
+			if (!duplicate) beam.add(node);
+		}
+		return beam;
+	}
+
+	/**
+	 * Solves given cube-representation and applies the cheapest solution found to it (the solution is recorded in the
+	 * solution array of the cube like by CubeAlgorithm.solve()).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Result of the search, not solved if the cube-representation can't be solved (see CubeValidator) or the calling thread
+	 * is interrupted (the cube is left unchanged then).
+	 */
+	protected SolveResult solve(RubiksCube cube) {
+		long start = System.nanoTime();
+		deadline = start + budget * 1000000;
+		if (CubeValidator.check(cube) != null) {
+			return new SolveResult(false, new int[CubeAlgorithm.STAGES.length], cube.solutionIndex, System.nanoTime() - start, 0);
+		}
+		List<Node> beam = select(roots(cube), width);
+		for (int phase = 0; phase < PHASES; phase++) {
+			List<Node> children = new ArrayList<>();
+			for (Node node : beam) {
+				if (Thread.currentThread().isInterrupted()) {
+					return new SolveResult(false, new int[CubeAlgorithm.STAGES.length], cube.solutionIndex, System.nanoTime() - start, 0);
+				}
+				boolean late = System.nanoTime() > deadline;
+				if (late && !children.isEmpty()) break;
+				children.addAll(expand(node, phase, late));
+			}
+			beam = select(children, width);
+		}
+		for (Node node : beam) {
+			int before = node.cube.solutionIndex;
+			RotationPropagation.apply(node.cube, 0);
+			PeepholeOptimizer.getInstance().optimize(node.cube, 0);
+			node.saved = before - node.cube.solutionIndex;
+			node.cost = MoveCost.time(node.cube.solution, 0, node.cube.solutionIndex);
+		}
+		Collections.sort(beam, BYCOST);
+		Node best = beam.get(0);
+		int first = cube.solutionIndex;
+		cube.setRecording(true);
+		for (int i = 0; i < best.cube.solutionIndex; i++) {
+			AllMoves move = best.cube.solution[i];
+			cube.applyMoves(new AllMoves[] {best.mirrored ? RobotSymmetry.mirror(move) : move});
+		}
+		cube.shortenSolution();
+		cube.setRecording(false);
+		int saved = best.saved + best.cube.solutionIndex - (cube.solutionIndex - first);
+		return new SolveResult(cube.isSolved(), best.stageLengths, saved, cube.solutionIndex, System.nanoTime() - start,
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
+	}
+}
@@ -0,0 +1,150 @@
+package solver;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import enums.ColorsEnum;
+
+/**
+ * Reference RGB-values of the six cube colors under the current lighting.
+ * References are learned from every successful scan with exponential decay, so they follow slow changes of ambient light.
+ * The reference of white is used for white balance: if a scan fails, its values are scaled so that its white elements
+ * match the white reference, and the elements are classified again.
+ * The profile is saved to a text file (number of learned scans, followed by one line of RGB-values per color).
+ */
+public class ColorProfile {
+	
+	/**
+	 * Weight of a new scan when references are updated.
+	 */
+	public static final float DECAY = 0.25F;
+	
+	/**
+	 * Minimum number of white elements in a scan that are needed for white balance.
+	 */
+	private static final int MINWHITE = 4;
+	
+	/**
+	 * Reference RGB-values indexed by ordinal of ColorsEnum (Y, W, G, O, B, R).
+	 */
+	private final float[][] references = new float[6][3];
+	
+	/**
+	 * Number of scans that were learned.
+	 */
+	private int scans = 0;
+	
+	/**
+	 * Returns reference RGB-values.
+	 * @return Array indexed by ordinal of ColorsEnum.
+	 */
+	public float[][] getReferences() {return references;}
+	
+	/**
+	 * Returns number of scans that were learned.
+	 * @return Number of scans, 0 if profile is empty.
+	 */
+	public int getScans() {return scans;}
+	
+	/**
+	 * Replaces all references (used after calibration scan).
+	 * @param newReferences Reference RGB-values indexed by ordinal of ColorsEnum.
+	 */
+	public void reset(float[][] newReferences) {
+		for (int c = 0; c < 6; c++) {
+			for (int k = 0; k < 3; k++) {references[c][k] = newReferences[c][k];}
+		}
+		scans = 1;
+	}
+	
+	/**
+	 * Updates references with the estimated values of a successful scan.
+	 * The mean value of all elements of one color is weighted with DECAY, the old reference with 1 - DECAY.
+	 * @param result ScanResult object of a scan whose colors are correct.
+	 * @return Largest change of a reference value.
+	 */
+	public float learn(ScanResult result) {
+		float[][] means = new float[6][3];
+		int[] count = new int[6];
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			int c = result.getColor(p).ordinal();
+			if (c >= 6) continue;
+			for (int k = 0; k < 3; k++) {means[c][k] += result.getEstimate(p, k);}
+			count[c]++;
+		}
+		float shift = 0;
+		for (int c = 0; c < 6; c++) {
+			if (count[c] == 0) continue;
+			for (int k = 0; k < 3; k++) {
+				float mean = means[c][k] / count[c];
+				float updated = (scans == 0) ? mean : references[c][k] + DECAY * (mean - references[c][k]);
+				shift = Math.max(shift, Math.abs(updated - references[c][k]));
+				references[c][k] = updated;
+			}
+		}
+		scans++;
+		return shift;
+	}
+	
+	/**
+	 * Calculates gains that scale the values of a scan so that its white elements match the white reference.
+	 * @param result ScanResult object of the scan.
+	 * @param gains Array that the gains of the three color channels are written to.
+	 * @return false if profile is empty or the scan contains too few white elements.
+	 */
+	public boolean whiteBalance(ScanResult result, float[] gains) {
+		if (scans == 0) return false;
+		float[] white = new float[3];
+		int count = 0;
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			if (result.getColor(p) != ColorsEnum.W) continue;
+			for (int k = 0; k < 3; k++) {white[k] += result.getEstimate(p, k);}
+			count++;
+		}
+		if (count < MINWHITE) return false;
+		for (int k = 0; k < 3; k++) {
+			if (white[k] <= 0) return false;
+			gains[k] = references[ColorsEnum.W.ordinal()][k] * count / white[k];
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes profile to text file.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	public void save(String fileName) throws IOException {
+		FileWriter profileFile = new FileWriter(fileName);
+		profileFile.write(scans + "\n");
+		for (int c = 0; c < 6; c++) {
+			profileFile.write(references[c][0] + " " + references[c][1] + " " + references[c][2] + "\n");
+		}
+		profileFile.close();
+	}
+	
+	/**
+	 * Reads profile from text file.
+	 * @param fileName Name of the file.
+	 * @return ColorProfile object
+	 * @throws IOException if file can't be read.
+	 */
+	public static ColorProfile load(String fileName) throws IOException {
+		ColorProfile profile = new ColorProfile();
+		BufferedReader profileFile = new BufferedReader(new FileReader(fileName));
+		try {
+			profile.scans = Integer.parseInt(profileFile.readLine().trim());
+			for (int c = 0; c < 6; c++) {
+				String[] values = profileFile.readLine().trim().split(" ");
+				for (int k = 0; k < 3; k++) {profile.references[c][k] = Float.parseFloat(values[k]);}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException(fileName + " is no color profile");
+		} finally {
+			profileFile.close();
+		}
+		return profile;
+	}
+}
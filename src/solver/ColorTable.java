@@ -0,0 +1,244 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import enums.ColorsEnum;
+
+/**
+ * Lookup table that maps quantized RGB-values to the color of a cube element.
+ * RGB-space is divided into 32 x 32 x 32 bins. Each bin contains one byte: the lower four bits hold the ordinal of the color,
+ * the upper four bits a confidence value (0...15). Classifying a sample only costs one array access,
+ * so it can be done for every sample while the table turns.
+ * The table is built from reference colors (calibration scan of a solved cube) or from any other classifier and is saved to disk.
+ */
+public class ColorTable {
+	
+	/**
+	 * Number of bits per color channel.
+	 */
+	public static final int BITS = 5;
+	
+	/**
+	 * Number of bins per color channel.
+	 */
+	public static final int BINS = 1 << BITS;
+	
+	/**
+	 * Number of bins of the table.
+	 */
+	public static final int SIZE = BINS * BINS * BINS;
+	
+	/**
+	 * Highest confidence value.
+	 */
+	public static final int MAXCONFIDENCE = 15;
+	
+	/**
+	 * Classification margin that corresponds to one step of confidence.
+	 */
+	public static final float CONFIDENCESTEP = 0.005F;
+	
+	/**
+	 * All colors, indexed by ordinal.
+	 */
+	private static final ColorsEnum[] COLORS = ColorsEnum.values();
+	
+	/**
+	 * Magic number at the beginning of every table file ("CTAB").
+	 */
+	private static final int MAGIC = 0x43544142;
+	
+	/**
+	 * Upper limit of RGB-values covered by the table. Larger values are put into the highest bin.
+	 */
+	private final float range;
+	
+	/**
+	 * Factor that converts RGB-values to bin numbers.
+	 */
+	private final float scale;
+	
+	/**
+	 * Table entries (confidence << 4 | color ordinal).
+	 */
+	private final byte[] table = new byte[SIZE];
+	
+	/**
+	 * Constructor that initializes an empty table (every bin contains ColorsEnum.N with confidence 0).
+	 * @param range Upper limit of RGB-values covered by the table.
+	 */
+	public ColorTable(float range) {
+		this.range = range;
+		this.scale = BINS / range;
+		for (int i = 0; i < SIZE; i++) {table[i] = (byte) ColorsEnum.N.ordinal();}
+	}
+	
+	/**
+	 * Converts a classification margin to a confidence value.
+	 * @param margin Classification margin.
+	 * @return Confidence value (0...15).
+	 */
+	public static int confidence(float margin) {
+		return Math.max(0, Math.min(MAXCONFIDENCE, (int) (margin / CONFIDENCESTEP)));
+	}
+	
+	/**
+	 * Returns color of a table entry.
+	 * @param entry Table entry.
+	 * @return ColorsEnum object
+	 */
+	public static ColorsEnum color(byte entry) {
+		return COLORS[entry & 0x0F];
+	}
+	
+	/**
+	 * Returns ordinal of the color of a table entry.
+	 * @param entry Table entry.
+	 * @return Ordinal of ColorsEnum object.
+	 */
+	public static int colorOrdinal(byte entry) {
+		return entry & 0x0F;
+	}
+	
+	/**
+	 * Returns confidence of a table entry.
+	 * @param entry Table entry.
+	 * @return Confidence value (0...15).
+	 */
+	public static int confidence(byte entry) {
+		return (entry >> 4) & 0x0F;
+	}
+	
+	/**
+	 * Converts one color value to its bin number.
+	 * @param value Color value.
+	 * @return Bin number (0...BINS-1).
+	 */
+	private int bin(float value) {
+		int bin = (int) (value * scale);
+		return (bin < 0) ? 0 : ((bin >= BINS) ? BINS - 1 : bin);
+	}
+	
+	/**
+	 * Returns table entry of given RGB-values.
+	 * @param sample Array that contains RGB-values.
+	 * @param offset Index of red value in sample-array.
+	 * @return Table entry.
+	 */
+	public byte lookup(float[] sample, int offset) {
+		return table[(bin(sample[offset]) << (2 * BITS)) | (bin(sample[offset + 1]) << BITS) | bin(sample[offset + 2])];
+	}
+	
+	/**
+	 * Writes RGB-values of the center of a bin to given array.
+	 * @param index Index of bin.
+	 * @param center Array that RGB-values are written to.
+	 */
+	public void binCenter(int index, float[] center) {
+		center[0] = ((index >> (2 * BITS)) + 0.5F) / scale;
+		center[1] = (((index >> BITS) & (BINS - 1)) + 0.5F) / scale;
+		center[2] = ((index & (BINS - 1)) + 0.5F) / scale;
+	}
+	
+	/**
+	 * Sets entry of a bin.
+	 * @param index Index of bin.
+	 * @param color Color of bin.
+	 * @param confidence Confidence value (0...15).
+	 */
+	public void set(int index, ColorsEnum color, int confidence) {
+		table[index] = (byte) ((confidence << 4) | color.ordinal());
+	}
+	
+	/**
+	 * Builds table from reference RGB-values of the six colors. Every bin gets the color of the nearest reference.
+	 * Confidence is derived from half the difference between the distances to the nearest and the second nearest reference.
+	 * @param references Reference RGB-values, indexed by ordinal of ColorsEnum (Y, W, G, O, B, R).
+	 * @param range Upper limit of RGB-values covered by the table.
+	 * @return ColorTable object
+	 */
+	public static ColorTable fromReferences(float[][] references, float range) {
+		ColorTable colorTable = new ColorTable(range);
+		float[] center = new float[3];
+		for (int i = 0; i < SIZE; i++) {
+			colorTable.binCenter(i, center);
+			int nearest = -1;
+			float first = Float.MAX_VALUE, second = Float.MAX_VALUE;
+			for (int c = 0; c < references.length; c++) {
+				float dr = center[0] - references[c][0];
+				float dg = center[1] - references[c][1];
+				float db = center[2] - references[c][2];
+				float distance = dr * dr + dg * dg + db * db;
+				if (distance < first) {
+					second = first;
+					first = distance;
+					nearest = c;
+				}
+				else if (distance < second) {second = distance;}
+			}
+			colorTable.set(i, COLORS[nearest], confidence(((float) Math.sqrt(second) - (float) Math.sqrt(first)) / 2));
+		}
+		return colorTable;
+	}
+	
+	/**
+	 * Calculates reference RGB-values from a scan with known colors (e.g. calibration scan of a solved cube).
+	 * @param result ScanResult object of the scan.
+	 * @param expected Correct color of each position (face * 8 + element).
+	 * @return Reference RGB-values indexed by ordinal of ColorsEnum, mean of the estimated values of all elements of that color.
+	 */
+	public static float[][] references(ScanResult result, ColorsEnum[] expected) {
+		float[][] references = new float[6][3];
+		int[] count = new int[6];
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			int c = expected[p].ordinal();
+			if (c >= 6) continue;
+			for (int k = 0; k < 3; k++) {references[c][k] += result.getEstimate(p, k);}
+			count[c]++;
+		}
+		for (int c = 0; c < 6; c++) {
+			for (int k = 0; k < 3; k++) {references[c][k] = (count[c] == 0) ? 0 : references[c][k] / count[c];}
+		}
+		return references;
+	}
+	
+	/**
+	 * Writes table to binary file.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	public void save(String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeFloat(range);
+			out.write(table);
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads table from binary file.
+	 * @param fileName Name of the file.
+	 * @return ColorTable object
+	 * @throws IOException if file can't be read or is no table file.
+	 */
+	public static ColorTable load(String fileName) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+		try {
+			if (in.readInt() != MAGIC) {throw new IOException(fileName + " is no color table");}
+			ColorTable colorTable = new ColorTable(in.readFloat());
+			in.readFully(colorTable.table);
+			return colorTable;
+		} finally {
+			in.close();
+		}
+	}
+}
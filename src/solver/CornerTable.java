@@ -0,0 +1,427 @@
+package solver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import enums.AllMoves;
+
+/**
+ * Pattern database of the corners: for every permutation and orientation of the eight corners (8! * 3^7 = 88179840 states)
+ * the number of robot moves needed to solve the corners, in any orientation of the whole cube. Edges are ignored, so the distance
+ * is a lower bound for solving the whole cube (admissible heuristic for IDA*). All nine robot moves count as one move.
+ * Distances are stored in 4 bits, two per byte, in a direct buffer outside the Java heap (42 MB). That is too much for the EV3,
+ * the table is meant for solvers running on a desktop computer. The largest distance is 15 (60 states), which is also the value
+ * of entries that aren't reached yet; the search ends before that layer and leaves these entries at 15, so all entries are exact.
+ * The table is built by breadth-first search on several threads, each thread writes only to its own range of entries, so
+ * no byte is written by two threads. As long as the last layer is small, every thread goes through the whole last layer and sets
+ * the neighbors that fall into its range; later every thread looks for neighbors in the last layer of the unknown entries of its range.
+ * Every move has an inverse move, so both ways find the same layer. The table is saved to a file and loaded from there next time.
+ */
+public class CornerTable {
+
+	/**
+	 * Name of the file the table is saved to.
+	 */
+	protected static final String FILENAME = "cornertable";
+
+	/**
+	 * Magic number at the beginning of every table file ("CRNR").
+	 */
+	private static final int MAGIC = 0x43524E52;
+
+	/**
+	 * Number of corner permutations (8!).
+	 */
+	private static final int PERMUTATIONS = 40320;
+
+	/**
+	 * Number of corner orientations (3^7, orientation of the last corner follows from the others).
+	 */
+	private static final int TWISTS = 2187;
+
+	/**
+	 * Number of entries of the table.
+	 */
+	protected static final int SIZE = PERMUTATIONS * TWISTS;
+
+	/**
+	 * Marks entries that haven't been reached yet while the table is built (largest value of 4 bits).
+	 * The search stops before this depth, entries left then have at least this distance.
+	 */
+	private static final int UNKNOWN = 15;
+
+	/**
+	 * New permutation after a move (PERMUTATIONMOVE[permutation * MOVECOUNT + move]).
+	 */
+	private static final int[] PERMUTATIONMOVE = new int[PERMUTATIONS * CubeState.MOVECOUNT];
+
+	/**
+	 * New orientation after a move (TWISTMOVE[twist * MOVECOUNT + move]).
+	 */
+	private static final short[] TWISTMOVE = new short[TWISTS * CubeState.MOVECOUNT];
+
+	static {
+		CubeState state = new CubeState();
+		CubeState next = new CubeState();
+		for (int p = 0; p < PERMUTATIONS; p++) {
+			setPermutation(state.cp, p);
+			for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+				next.multiply(state, CubeState.MOVES[m]);
+				PERMUTATIONMOVE[p * CubeState.MOVECOUNT + m] = permutation(next.cp);
+			}
+		}
+		state.resetSolved();
+		for (int t = 0; t < TWISTS; t++) {
+			setTwist(state.co, t);
+			for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+				next.multiply(state, CubeState.MOVES[m]);
+				TWISTMOVE[t * CubeState.MOVECOUNT + m] = (short) twist(next.co);
+			}
+		}
+	}
+
+	/**
+	 * Shared instance, created by getInstance().
+	 */
+	private static CornerTable instance = null;
+
+	/**
+	 * Distances, entry i in the low (i even) or high (i odd) 4 bits of byte i / 2.
+	 */
+	private final ByteBuffer table;
+
+	/**
+	 * Constructor that builds the table.
+	 * @param threads Number of threads used to build the table.
+	 */
+	protected CornerTable(int threads) {
+		table = ByteBuffer.allocateDirect((SIZE + 1) / 2);
+		build(threads);
+	}
+
+	/**
+	 * Constructor that uses an existing table.
+	 * @param table Direct buffer with packed distances.
+	 */
+	private CornerTable(ByteBuffer table) {
+		this.table = table;
+	}
+
+	/**
+	 * Returns the shared CornerTable. At first call the table is loaded from disk or, if there is no table file yet,
+	 * built with all processor cores and saved.
+	 * @return CornerTable object.
+	 */
+	protected static synchronized CornerTable getInstance() {
+		if (instance == null) {
+			if (new File(FILENAME).exists()) {
+				try {
+					instance = load(FILENAME);
+				} catch (IOException e) {e.printStackTrace();}
+			}
+			if (instance == null) {
+				instance = new CornerTable(Runtime.getRuntime().availableProcessors());
+				try {
+					instance.save(FILENAME);
+				} catch (IOException e) {e.printStackTrace();}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns number of a corner permutation (0...8! - 1).
+	 * @param cp Corner at each corner position.
+	 * @return Rank of the permutation in lexicographic order.
+	 */
+	private static int permutation(byte[] cp) {
+		int rank = 0;
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			int smaller = 0;
+			for (int k = i + 1; k < CubeState.CORNERS; k++) {
+				if (cp[k] < cp[i]) smaller++;
+			}
+			rank = rank * (CubeState.CORNERS - i) + smaller;
+		}
+		return rank;
+	}
+
+	/**
+	 * Sets corner permutation from its number.
+	 * @param cp Array the corner at each corner position is written to.
+	 * @param rank Number of the permutation (see permutation()).
+	 */
+	private static void setPermutation(byte[] cp, int rank) {
+		int[] smaller = new int[CubeState.CORNERS];
+		for (int i = CubeState.CORNERS - 1; i >= 0; i--) {
+			smaller[i] = rank % (CubeState.CORNERS - i);
+			rank /= CubeState.CORNERS - i;
+		}
+		boolean[] used = new boolean[CubeState.CORNERS];
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			int corner = 0;
+			while (used[corner]) corner++;
+			for (int k = 0; k < smaller[i]; k++) {
+				corner++;
+				while (used[corner]) corner++;
+			}
+			used[corner] = true;
+			cp[i] = (byte) corner;
+		}
+	}
+
+	/**
+	 * Returns number of the corner orientations (0...3^7 - 1).
+	 * @param co Orientation at each corner position.
+	 * @return Orientations of the first seven positions as number to base 3.
+	 */
+	private static int twist(byte[] co) {
+		int twist = 0;
+		for (int i = 0; i < CubeState.CORNERS - 1; i++) {twist = twist * 3 + co[i];}
+		return twist;
+	}
+
+	/**
+	 * Sets corner orientations from their number, the orientation of the last position makes the sum a multiple of 3.
+	 * @param co Array the orientation at each corner position is written to.
+	 * @param twist Number of the orientations (see twist()).
+	 */
+	private static void setTwist(byte[] co, int twist) {
+		int sum = 0;
+		for (int i = CubeState.CORNERS - 2; i >= 0; i--) {
+			co[i] = (byte) (twist % 3);
+			sum += co[i];
+			twist /= 3;
+		}
+		co[CubeState.CORNERS - 1] = (byte) ((3 - sum % 3) % 3);
+	}
+
+	/**
+	 * Returns index of the corners of a state.
+	 * @param state CubeState object.
+	 * @return Index into table.
+	 */
+	protected static int index(CubeState state) {
+		return permutation(state.cp) * TWISTS + twist(state.co);
+	}
+
+	/**
+	 * Returns index after applying a move.
+	 * @param index Index before move.
+	 * @param move Number of move (ordinal of AllMoves).
+	 * @return Index after move.
+	 */
+	protected static int move(int index, int move) {
+		return PERMUTATIONMOVE[(index / TWISTS) * CubeState.MOVECOUNT + move] * TWISTS + TWISTMOVE[(index % TWISTS) * CubeState.MOVECOUNT + move];
+	}
+
+	/**
+	 * Returns number of moves needed to solve the corners.
+	 * @param index Index of corners (see index()).
+	 * @return Number of moves.
+	 */
+	protected int getDistance(int index) {
+		int packed = table.get(index >> 1);
+		return ((index & 1) == 0) ? packed & 15 : (packed >> 4) & 15;
+	}
+
+	/**
+	 * Returns number of moves needed to solve the corners of a state.
+	 * @param state CubeState object.
+	 * @return Number of moves.
+	 */
+	protected int getDistance(CubeState state) {
+		return getDistance(index(state));
+	}
+
+	/**
+	 * Returns number of moves needed to solve the corners of a cube-representation.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Number of moves, -1 if the cube-representation doesn't contain valid corners.
+	 */
+	protected int getDistance(RubiksCube cube) {
+		CubeState state = new CubeState();
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			if (!state.readCorner(cube, i)) return -1;
+		}
+		return getDistance(index(state));
+	}
+
+	/**
+	 * Sets distance of an entry.
+	 * @param index Index of corners.
+	 * @param distance Number of moves (0...15).
+	 */
+	private void setDistance(int index, int distance) {
+		int packed = table.get(index >> 1);
+		packed = ((index & 1) == 0) ? (packed & 0xF0) | distance : (packed & 0x0F) | (distance << 4);
+		table.put(index >> 1, (byte) packed);
+	}
+
+	/**
+	 * Fills table by breadth-first search, starting at the solved corners in all four orientations of the whole cube.
+	 * @param threads Number of threads.
+	 */
+	private void build(int threads) {
+		for (int i = 0; i < table.capacity(); i++) {table.put(i, (byte) 0xFF);}
+		CubeState goal = new CubeState();
+		int layer = 0;
+		for (int r = 0; r < 4; r++) {
+			if (getDistance(index(goal)) == UNKNOWN) {
+				setDistance(index(goal), 0);
+				layer++;
+			}
+			goal.applyMove(AllMoves.R);
+		}
+		long unknown = SIZE - layer;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int depth = 0; layer > 0 && depth + 1 < UNKNOWN; depth++) {
+				final int current = depth;
+				final boolean push = (long) layer * threads < unknown;
+				List<Callable<Integer>> tasks = new ArrayList<>();
+				for (int k = 0; k < threads; k++) {
+					final int from = (int) ((long) SIZE * k / threads) & ~1;
+					final int to = (k == threads - 1) ? SIZE : (int) ((long) SIZE * (k + 1) / threads) & ~1;
+					tasks.add(new Callable<Integer>() {
+						@Override
+						public Integer call() {return push ? push(current, from, to) : pull(current, from, to);}
+					});
+				}
+				layer = 0;
+				for (Future<Integer> result : executor.invokeAll(tasks)) {layer += result.get();}
+				unknown -= layer;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("corner table not built");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("corner table not built", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Sets the unknown neighbors in a range of all entries of the last layer.
+	 * @param depth Distance of the last layer.
+	 * @param from First entry of the range (even).
+	 * @param to First entry after the range (even or SIZE).
+	 * @return Number of entries set.
+	 */
+	private int push(int depth, int from, int to) {
+		int count = 0;
+		for (int i = 0; i < SIZE; i++) {
+			if (getDistance(i) != depth) continue;
+			for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+				int next = move(i, m);
+				if (next >= from && next < to && getDistance(next) == UNKNOWN) {
+					setDistance(next, depth + 1);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the unknown entries in a range that have a neighbor in the last layer.
+	 * @param depth Distance of the last layer.
+	 * @param from First entry of the range (even).
+	 * @param to First entry after the range (even or SIZE).
+	 * @return Number of entries set.
+	 */
+	private int pull(int depth, int from, int to) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (getDistance(i) != UNKNOWN) continue;
+			for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+				if (getDistance(move(i, m)) == depth) {
+					setDistance(i, depth + 1);
+					count++;
+					break;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Saves table to disk.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	protected void save(String fileName) throws IOException {
+		FileChannel out = new FileOutputStream(fileName).getChannel();
+		try {
+			ByteBuffer header = ByteBuffer.allocate(8);
+			header.putInt(MAGIC).putInt(SIZE).flip();
+			while (header.hasRemaining()) out.write(header);
+			ByteBuffer data = table.duplicate();
+			data.clear();
+			while (data.hasRemaining()) out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads table from disk into a direct buffer.
+	 * @param fileName Name of the file.
+	 * @return CornerTable object.
+	 * @throws IOException if file can't be read or is no corner table.
+	 */
+	protected static CornerTable load(String fileName) throws IOException {
+		FileChannel in = new FileInputStream(fileName).getChannel();
+		try {
+			ByteBuffer header = ByteBuffer.allocate(8);
+			while (header.hasRemaining()) {
+				if (in.read(header) < 0) throw new IOException("no corner table: " + fileName);
+			}
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != SIZE) throw new IOException("no corner table: " + fileName);
+			ByteBuffer table = ByteBuffer.allocateDirect((SIZE + 1) / 2);
+			while (table.hasRemaining()) {
+				if (in.read(table) < 0) throw new IOException("corner table cut off: " + fileName);
+			}
+			table.clear();
+			return new CornerTable(table);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Builds table and saves it (offline, on a desktop computer).
+	 * Prints number of entries of each distance and the average distance.
+	 * @param args Optional number of threads, default is the number of processor cores.
+	 */
+	public static void main(String[] args) {
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		long start = System.currentTimeMillis();
+		CornerTable table = new CornerTable(threads);
+		System.out.println("built on " + threads + " threads in " + (System.currentTimeMillis() - start) + " ms");
+		long[] counts = new long[16];
+		for (int i = 0; i < SIZE; i++) {counts[table.getDistance(i)]++;}
+		long sum = 0;
+		for (int d = 0; d < 16; d++) {
+			if (counts[d] > 0) System.out.println(d + ": " + counts[d]);
+			sum += d * counts[d];
+		}
+		System.out.println("average " + (double) sum / SIZE);
+		try {
+			table.save(FILENAME);
+		} catch (IOException e) {e.printStackTrace();}
+	}
+}
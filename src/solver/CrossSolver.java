@@ -0,0 +1,437 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import enums.AllMoves;
+
+/**
+ * Solves the yellow cross (first level edges) with the fewest possible robot moves.
+ * A distance table contains for every position and orientation of the four cross edges and every orientation of the whole cube
+ * the number of moves needed to solve the cross. Following moves that decrease the distance gives a shortest cross.
+ * All nine robot moves (F, D and whole cube rotations R, each in three variants) count as one move.
+ * A state and its image under a symmetry of RobotSymmetry.SUBGROUP (the reflection that swaps left and right) need the same number of moves,
+ * so only one state of every such pair is stored: the index is split into the front and back edges with the rotations, which the reflection
+ * maps onto themselves, and the right and left edges. The front-back part is replaced by the smallest of its images (its class) and the
+ * symmetry used for that is applied to the right-left part too. So the table has 1216 * 24^2 entries (0.7 MB instead of 1.3 MB).
+ * It is built once by breadth-first search and saved to disk.
+ */
+public class CrossSolver {
+
+	/**
+	 * Number of values (position * 2 + orientation) of one edge.
+	 */
+	private static final int EDGEVALUES = 2 * CubeState.EDGES;
+
+	/**
+	 * Number of values of the front-back part of an index (edges UF and UB, rotations).
+	 */
+	private static final int FRONTBACK = EDGEVALUES * EDGEVALUES * 4;
+
+	/**
+	 * Number of values of the right-left part of an index (edges UR and UL).
+	 */
+	private static final int RIGHTLEFT = EDGEVALUES * EDGEVALUES;
+
+	/**
+	 * Class of each front-back part: number of the smallest front-back part it is mapped to by a symmetry.
+	 */
+	private static final short[] CLASSINDEX = new short[FRONTBACK];
+
+	/**
+	 * Symmetry (of RobotSymmetry.SUBGROUP) that maps each front-back part to the representative of its class.
+	 */
+	private static final byte[] CLASSSYMMETRY = new byte[FRONTBACK];
+
+	/**
+	 * Representative (smallest front-back part) of each class.
+	 */
+	private static final int[] REPRESENTATIVES;
+
+	/**
+	 * Symmetries (bit s for symmetry s) that map the representative of each class onto itself.
+	 */
+	private static final int[] STABILIZERS;
+
+	/**
+	 * Image of each right-left part under each symmetry (RIGHTLEFTSYMMETRY[symmetry][part]).
+	 */
+	private static final int[][] RIGHTLEFTSYMMETRY = new int[RobotSymmetry.SUBGROUP.length][RIGHTLEFT];
+
+	/**
+	 * Edge position * 2 + number of facelet in EDGEFACELETS of every facelet (face * 8 + element), -1 for corner facelets.
+	 */
+	private static final int[] EDGEFACELET = new int[48];
+
+	/**
+	 * Name of the file the table is saved to.
+	 */
+	protected static final String FILENAME = "crosstable";
+
+	/**
+	 * Magic number at the beginning of every table file ("CRSS").
+	 */
+	private static final int MAGIC = 0x43525353;
+
+	/**
+	 * Marks entries that haven't been reached yet while the table is built.
+	 */
+	private static final byte UNKNOWN = -1;
+
+	/**
+	 * New value (position * 2 + orientation) of an edge after a move (EDGEMOVE[move][value]).
+	 */
+	private static final int[][] EDGEMOVE = new int[CubeState.MOVECOUNT][EDGEVALUES];
+
+	static {
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			CubeState move = CubeState.MOVES[m];
+			for (int i = 0; i < CubeState.EDGES; i++) {
+				for (int o = 0; o < 2; o++) {
+					EDGEMOVE[m][move.ep[i] * 2 + o] = i * 2 + (o ^ move.eo[i]);
+				}
+			}
+		}
+
+		for (int facelet = 0; facelet < 48; facelet++) {EDGEFACELET[facelet] = -1;}
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			for (int k = 0; k < 2; k++) {EDGEFACELET[CubeState.EDGEFACELETS[i][k]] = i * 2 + k;}
+		}
+		for (int s = 0; s < RobotSymmetry.SUBGROUP.length; s++) {
+			for (int part = 0; part < RIGHTLEFT; part++) {RIGHTLEFTSYMMETRY[s][part] = rightLeft(symmetric(index(0, part), s));}
+		}
+		int[] representatives = new int[FRONTBACK];
+		int[] stabilizers = new int[FRONTBACK];
+		int classes = 0;
+		for (int part = 0; part < FRONTBACK; part++) {
+			int smallest = part;
+			int symmetry = 0;
+			int stabilizer = 1;
+			for (int s = 1; s < RobotSymmetry.SUBGROUP.length; s++) {
+				int image = frontBack(symmetric(index(part, 0), s));
+				if (image == part) {stabilizer |= 1 << s;}
+				if (image < smallest) {
+					smallest = image;
+					symmetry = s;
+				}
+			}
+			if (smallest == part) {
+				stabilizers[classes] = stabilizer;
+				representatives[classes++] = part;
+			}
+			CLASSINDEX[part] = (short) ((smallest == part) ? classes - 1 : CLASSINDEX[smallest]);
+			CLASSSYMMETRY[part] = (byte) symmetry;
+		}
+		REPRESENTATIVES = new int[classes];
+		STABILIZERS = new int[classes];
+		System.arraycopy(representatives, 0, REPRESENTATIVES, 0, classes);
+		System.arraycopy(stabilizers, 0, STABILIZERS, 0, classes);
+	}
+
+	/**
+	 * Number of entries of the distance table.
+	 */
+	protected static final int SIZE = REPRESENTATIVES.length * RIGHTLEFT;
+
+	/**
+	 * Shared instance, created by getInstance().
+	 */
+	private static CrossSolver instance = null;
+
+	/**
+	 * Number of moves needed to solve the cross, indexed by index().
+	 */
+	private final byte[] distance;
+
+	/**
+	 * Constructor that builds the distance table.
+	 */
+	protected CrossSolver() {
+		distance = new byte[SIZE];
+		build();
+	}
+
+	/**
+	 * Constructor that uses an existing distance table.
+	 * @param distance Distance table.
+	 */
+	private CrossSolver(byte[] distance) {
+		this.distance = distance;
+	}
+
+	/**
+	 * Returns the shared CrossSolver. At first call the table is loaded from disk or, if there is no table file yet, built and saved.
+	 * @return CrossSolver object.
+	 */
+	protected static synchronized CrossSolver getInstance() {
+		if (instance == null) {
+			if (new File(FILENAME).exists()) {
+				try {
+					instance = load(FILENAME);
+				} catch (IOException e) {e.printStackTrace();}
+			}
+			if (instance == null) {
+				instance = new CrossSolver();
+				try {
+					instance.save(FILENAME);
+				} catch (IOException e) {e.printStackTrace();}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns index of the cross edges of a state.
+	 * @param state CubeState object.
+	 * @return Index into distance table.
+	 */
+	protected static int index(CubeState state) {
+		int[] values = new int[4];
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			if (state.ep[i] < 4) {values[state.ep[i]] = i * 2 + state.eo[i];}
+		}
+		return (((values[0] * EDGEVALUES + values[1]) * EDGEVALUES + values[2]) * EDGEVALUES + values[3]) * 4 + state.rotations;
+	}
+
+	/**
+	 * Returns index of the cross edges from its two parts.
+	 * @param frontBack Front-back part: (value of UF * 24 + value of UB) * 4 + rotations.
+	 * @param rightLeft Right-left part: value of UR * 24 + value of UL.
+	 * @return Index of cross edges.
+	 */
+	private static int index(int frontBack, int rightLeft) {
+		int rotations = frontBack & 3;
+		frontBack >>= 2;
+		return ((((rightLeft / EDGEVALUES) * EDGEVALUES + frontBack / EDGEVALUES) * EDGEVALUES + rightLeft % EDGEVALUES) * EDGEVALUES
+				+ frontBack % EDGEVALUES) * 4 + rotations;
+	}
+
+	/**
+	 * Returns front-back part of an index.
+	 * @param index Index of cross edges.
+	 * @return (value of UF * 24 + value of UB) * 4 + rotations.
+	 */
+	private static int frontBack(int index) {
+		int rotations = index & 3;
+		index >>= 2;
+		return ((index / EDGEVALUES / EDGEVALUES % EDGEVALUES) * EDGEVALUES + index % EDGEVALUES) * 4 + rotations;
+	}
+
+	/**
+	 * Returns right-left part of an index.
+	 * @param index Index of cross edges.
+	 * @return Value of UR * 24 + value of UL.
+	 */
+	private static int rightLeft(int index) {
+		index >>= 2;
+		return (index / EDGEVALUES / EDGEVALUES / EDGEVALUES) * EDGEVALUES + index / EDGEVALUES % EDGEVALUES;
+	}
+
+	/**
+	 * Returns index of the image of the cross edges under a symmetry.
+	 * An edge whose first facelet (see CubeState.EDGEFACELETS) is at facelet k of a position is moved to the position of the image
+	 * of that facelet; the orientation changes if the image of the first facelet isn't the first facelet of the image edge.
+	 * @param index Index of cross edges.
+	 * @param symmetry Number of symmetry of RobotSymmetry.SUBGROUP.
+	 * @return Index of cross edges of the image.
+	 */
+	private static int symmetric(int index, int symmetry) {
+		int[] permutation = RobotSymmetry.SUBGROUP[symmetry];
+		int rotations = index & 3;
+		if (RobotSymmetry.SUBGROUPMOVE[symmetry][AllMoves.R.ordinal()] != AllMoves.R.ordinal()) {rotations = (4 - rotations) & 3;}
+		index >>= 2;
+		int[] values = new int[4];
+		for (int edge = 3; edge >= 0; edge--) {
+			int value = index % EDGEVALUES;
+			index /= EDGEVALUES;
+			int image = EDGEFACELET[permutation[CubeState.EDGEFACELETS[edge][0]]];
+			int target = EDGEFACELET[permutation[CubeState.EDGEFACELETS[value / 2][value % 2]]];
+			values[image / 2] = (target & ~1) | ((target ^ image) & 1);
+		}
+		return (((values[0] * EDGEVALUES + values[1]) * EDGEVALUES + values[2]) * EDGEVALUES + values[3]) * 4 + rotations;
+	}
+
+	/**
+	 * Returns entry of the distance table that belongs to an index: the class of its front-back part and the right-left part
+	 * transformed by the same symmetry. If the representative is mapped onto itself by other symmetries, the smallest of the
+	 * right-left parts they lead to is taken, so both indices of a pair always get the same entry.
+	 * @param index Index of cross edges.
+	 * @return Position in distance table.
+	 */
+	private static int entry(int index) {
+		int frontBack = frontBack(index);
+		int classIndex = CLASSINDEX[frontBack];
+		int rightLeft = RIGHTLEFTSYMMETRY[CLASSSYMMETRY[frontBack]][rightLeft(index)];
+		if (STABILIZERS[classIndex] != 1) {
+			int smallest = rightLeft;
+			for (int s = 1; s < RobotSymmetry.SUBGROUP.length; s++) {
+				if ((STABILIZERS[classIndex] & (1 << s)) != 0) {smallest = Math.min(smallest, RIGHTLEFTSYMMETRY[s][rightLeft]);}
+			}
+			rightLeft = smallest;
+		}
+		return classIndex * RIGHTLEFT + rightLeft;
+	}
+
+	/**
+	 * Returns index after applying a move.
+	 * @param index Index before move.
+	 * @param move Number of move (ordinal of AllMoves).
+	 * @return Index after move.
+	 */
+	protected static int move(int index, int move) {
+		int rotations = (index + CubeState.MOVES[move].rotations) & 3;
+		index >>= 2;
+		int v3 = EDGEMOVE[move][index % EDGEVALUES];
+		index /= EDGEVALUES;
+		int v2 = EDGEMOVE[move][index % EDGEVALUES];
+		index /= EDGEVALUES;
+		int v1 = EDGEMOVE[move][index % EDGEVALUES];
+		int v0 = EDGEMOVE[move][index / EDGEVALUES];
+		return (((v0 * EDGEVALUES + v1) * EDGEVALUES + v2) * EDGEVALUES + v3) * 4 + rotations;
+	}
+
+	/**
+	 * Fills distance table by breadth-first search, starting at the solved cross in all four orientations of the whole cube.
+	 * Every move has an inverse move, so distance to the solved cross equals distance from it.
+	 * Entry i stands for the index with the representative of class i / RIGHTLEFT as front-back part; the moves of its image
+	 * are the images of its moves, so the table is complete without visiting the other index of each pair.
+	 */
+	private void build() {
+		for (int i = 0; i < SIZE; i++) {distance[i] = UNKNOWN;}
+		CubeState goal = new CubeState();
+		for (int r = 0; r < 4; r++) {
+			distance[entry(index(goal))] = 0;
+			goal.applyMove(AllMoves.R);
+		}
+		boolean found = true;
+		for (int depth = 0; found; depth++) {
+			found = false;
+			for (int i = 0; i < SIZE; i++) {
+				if (distance[i] != depth) continue;
+				int index = index(REPRESENTATIVES[i / RIGHTLEFT], i % RIGHTLEFT);
+				for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+					int next = entry(move(index, m));
+					if (distance[next] == UNKNOWN) {
+						distance[next] = (byte)(depth + 1);
+						found = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns number of moves needed to solve the cross of a state.
+	 * @param state CubeState object.
+	 * @return Number of moves.
+	 */
+	protected int getDistance(CubeState state) {
+		return distance[entry(index(state))];
+	}
+
+	/**
+	 * Returns number of moves needed to solve the cross.
+	 * @param index Index of cross edges (see index()).
+	 * @return Number of moves.
+	 */
+	protected int getDistance(int index) {
+		return distance[entry(index)];
+	}
+
+	/**
+	 * Solves the cross of given cube-representation with the fewest possible moves. Moves are applied to the cube (and recorded).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return False if the cube-representation doesn't contain valid edges (nothing is applied then).
+	 */
+	protected boolean solve(RubiksCube cube) {
+		CubeState state = new CubeState();
+		if (!state.fromCube(cube)) return false;
+		int index = index(state);
+		AllMoves[] move = new AllMoves[1];
+		while (getDistance(index) > 0) {
+			int m = 0;
+			int next = move(index, m);
+			while (getDistance(next) != getDistance(index) - 1) {next = move(index, ++m);}
+			move[0] = AllMoves.values()[m];
+			cube.applyMoves(move);
+			index = next;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns different shortest solutions of the cross of a state, in the order of the moves (F before D before R).
+	 * @param state CubeState object.
+	 * @param max Maximum number of solutions.
+	 * @return List of move sequences, empty if the state has no valid cross.
+	 */
+	protected List<AllMoves[]> solutions(CubeState state, int max) {
+		List<AllMoves[]> solutions = new ArrayList<>();
+		int index = index(state);
+		collect(index, new AllMoves[getDistance(index)], 0, solutions, max);
+		return solutions;
+	}
+
+	/**
+	 * Follows all moves that decrease the distance until the cross is solved or enough solutions are found.
+	 * @param index Index of cross edges.
+	 * @param path Moves applied so far.
+	 * @param depth Number of moves applied so far.
+	 * @param solutions List found solutions are added to.
+	 * @param max Maximum number of solutions.
+	 */
+	private void collect(int index, AllMoves[] path, int depth, List<AllMoves[]> solutions, int max) {
+		if (getDistance(index) == 0) {
+			solutions.add(path.clone());
+			return;
+		}
+		for (int m = 0; m < CubeState.MOVECOUNT && solutions.size() < max; m++) {
+			int next = move(index, m);
+			if (getDistance(next) != getDistance(index) - 1) continue;
+			path[depth] = AllMoves.values()[m];
+			collect(next, path, depth + 1, solutions, max);
+		}
+	}
+
+	/**
+	 * Saves distance table to disk.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	protected void save(String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(SIZE);
+			out.write(distance);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads distance table from disk.
+	 * @param fileName Name of the file.
+	 * @return CrossSolver object.
+	 * @throws IOException if file can't be read or is no cross table.
+	 */
+	protected static CrossSolver load(String fileName) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != SIZE) throw new IOException("no cross table: " + fileName);
+			byte[] distance = new byte[SIZE];
+			in.readFully(distance);
+			return new CrossSolver(distance);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -1,16 +1,130 @@
 package solver;
 
-import lejos.hardware.Button;
-import lejos.hardware.lcd.LCD;
-import lejos.utility.Stopwatch;
 import enums.AllMoves;
 import enums.ColorsEnum;
 import enums.FacesEnum;
 
 /**
- * This class contains the main program and all methods that solve the Rubik's Cube step by step.
+ * This class contains all methods that solve the Rubik's Cube step by step.
+ * It has no dependency on the EV3 hardware; events are reported to an optional SolverListener (see CubeSolverMain for the robot program).
  */
 public class CubeAlgorithm {
+	
+	/**
+	 * Receives events of the solver, null if nobody listens.
+	 */
+	private SolverListener listener = null;
+	
+	/**
+	 * Setter-method for the listener that receives events of the solver.
+	 * @param listener SolverListener object, null to remove listener.
+	 */
+	protected void setListener(SolverListener listener) {this.listener = listener;}
+	
+	/**
+	 * If true, first level edges are placed by CrossSolver with the fewest possible moves, otherwise edge by edge.
+	 */
+	private boolean optimalCross = true;
+	
+	/**
+	 * Setter-method for boolean variable "optimalCross"
+	 * @param optimalCross boolean value to write in "optimalCross"
+	 */
+	protected void setOptimalCross(boolean optimalCross) {this.optimalCross = optimalCross;}
+	
+	/**
+	 * If true, first level corners and second level edges are solved together as pairs by PairSolver, otherwise one after another.
+	 */
+	private boolean pairSolving = true;
+	
+	/**
+	 * PairSolver object, created at first use (it keeps search state, so every CubeAlgorithm object needs its own).
+	 */
+	private PairSolver pairSolver = null;
+	
+	/**
+	 * Setter-method for boolean variable "pairSolving"
+	 * @param pairSolving boolean value to write in "pairSolving"
+	 */
+	protected void setPairSolving(boolean pairSolving) {this.pairSolving = pairSolving;}
+	
+	/**
+	 * If true, the complete last layer is solved with LastLayerTable (if the table is available), otherwise stage by stage.
+	 */
+	private boolean lastLayerTable = true;
+	
+	/**
+	 * Setter-method for boolean variable "lastLayerTable"
+	 * @param lastLayerTable boolean value to write in "lastLayerTable"
+	 */
+	protected void setLastLayerTable(boolean lastLayerTable) {this.lastLayerTable = lastLayerTable;}
+	
+	/**
+	 * If true, rotations of the whole cube that aren't needed are removed by RotationPropagation after the last stage.
+	 */
+	private boolean rotationPropagation = true;
+	
+	/**
+	 * Setter-method for boolean variable "rotationPropagation"
+	 * @param rotationPropagation boolean value to write in "rotationPropagation"
+	 */
+	protected void setRotationPropagation(boolean rotationPropagation) {this.rotationPropagation = rotationPropagation;}
+	
+	/**
+	 * If true, the complete solution is improved by PeepholeOptimizer after the last stage.
+	 */
+	private boolean peephole = true;
+	
+	/**
+	 * Setter-method for boolean variable "peephole"
+	 * @param peephole boolean value to write in "peephole"
+	 */
+	protected void setPeephole(boolean peephole) {this.peephole = peephole;}
+	
+	/**
+	 * Names of the solving stages in the order they are applied (see applyStage()).
+	 */
+	protected static final String[] STAGES = {"firstLevelEdges", "firstLevelCorners", "secondLevelEdges", "orientLLEdges", "permuteLLCorners", "orientLLCorners", "permuteLLedges"};
+	
+	/**
+	 * Maneuver that orients last layer edges (used by orientLLEdges).
+	 */
+	private static final AllMoves[] ORIENTEDGES1 = {AllMoves.F, AllMoves.D, AllMoves.R, AllMoves.F, AllMoves.DI, AllMoves.FI, AllMoves.RI, AllMoves.FI};
+	
+	/**
+	 * Second maneuver that orients last layer edges (used by orientLLEdges).
+	 */
+	private static final AllMoves[] ORIENTEDGES2 = {AllMoves.F, AllMoves.R, AllMoves.F, AllMoves.D, AllMoves.FI, AllMoves.RI, AllMoves.DI, AllMoves.FI};
+	
+	/**
+	 * Maneuver that permutes last layer corners (used by permuteLLCorners).
+	 */
+	private static final AllMoves[] CORNERSWAP = {AllMoves.R, AllMoves.F, AllMoves.DI, AllMoves.SR, AllMoves.FI, AllMoves.D, AllMoves.SR, AllMoves.FI, AllMoves.DI, AllMoves.SR, AllMoves.F, AllMoves.R, AllMoves.SD};
+	
+	/**
+	 * Maneuver that rotates last layer corners (used by orientLLCorners).
+	 */
+	private static final AllMoves[] ORIENTCORNERS1 = {AllMoves.RI, AllMoves.FI, AllMoves.DI, AllMoves.F, AllMoves.DI, AllMoves.FI, AllMoves.SD, AllMoves.F, AllMoves.SD, AllMoves.R};
+	
+	/**
+	 * Second maneuver that rotates last layer corners (used by orientLLCorners).
+	 */
+	private static final AllMoves[] ORIENTCORNERS2 = {AllMoves.RI, AllMoves.F, AllMoves.D, AllMoves.FI, AllMoves.D, AllMoves.F, AllMoves.SD, AllMoves.FI, AllMoves.SD, AllMoves.R};
+	
+	/**
+	 * Maneuver that cycles three last layer edges (used by permuteLLedges).
+	 */
+	private static final AllMoves[] PERMUTEEDGES1 = {AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.D, AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.FI, AllMoves.SR, AllMoves.F, AllMoves.D, AllMoves.RI, AllMoves.SF, AllMoves.R};
+	
+	/**
+	 * Maneuver that cycles three last layer edges in the other direction (used by permuteLLedges).
+	 */
+	private static final AllMoves[] PERMUTEEDGES2 = {AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.DI, AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.FI, AllMoves.SR, AllMoves.F, AllMoves.DI, AllMoves.RI, AllMoves.SF, AllMoves.R};
+	
+	/**
+	 * All maneuvers of the last layer stages. They keep the first two layers, so LastLayerTable combines them to solve the last layer at once.
+	 */
+	protected static final AllMoves[][] LLMANEUVERS = {ORIENTEDGES1, ORIENTEDGES2, CORNERSWAP, ORIENTCORNERS1, ORIENTCORNERS2, PERMUTEEDGES1, PERMUTEEDGES2};
 
 	/**
 	 * Searches through all edges of given cube-representation and returns the Edge object with the two specified colors.
@@ -171,9 +285,11 @@ public class CubeAlgorithm {
 	/**
 	 * Locates the four edges of first level (top layer of the Rubik's Cube) and moves them correctly oriented onto their positions.
 	 * After this, the yellow cross could be seen on top face.
+	 * If optimalCross is set, the shortest cross is taken from the distance table of CrossSolver instead.
 	 * @param cube Internal representation of scanned Rubik's Cube
 	 */
-	private void firstLevelEdges(RubiksCube cube) {
+	protected void firstLevelEdges(RubiksCube cube) {
+		if (optimalCross && CrossSolver.getInstance().solve(cube)) return;
 		Edge edge;
 		for (int i = 0; i < 4; i++) {
 			edge = findEdge(cube, cube.upColor(), cube.frontColor());
@@ -329,9 +445,14 @@ public class CubeAlgorithm {
 	/**
 	 * Locates the four corners of first level (top layer of the Rubik's Cube) and moves them correctly oriented onto their positions.
 	 * After this, complete first level of cube is correctly colored.
+	 * If pairSolving is set, PairSolver inserts every corner together with its middle edge instead, so secondLevelEdges has nothing left to do.
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void firstLevelCorners(RubiksCube cube) {
+	protected void firstLevelCorners(RubiksCube cube) {
+		if (pairSolving) {
+			if (pairSolver == null) {pairSolver = new PairSolver(CrossSolver.getInstance());}
+			if (pairSolver.solve(cube)) return;
+		}
 		Corner corner;
 		for (int i = 0; i < 4; i++) {
 			corner = findCorner(cube, cube.upColor(), cube.frontColor(), cube.rightColor());
@@ -382,7 +503,7 @@ public class CubeAlgorithm {
 	 * After this the first two layers are correctly colored, because middle elements in second layer are static.
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void secondLevelEdges(RubiksCube cube) {
+	protected void secondLevelEdges(RubiksCube cube) {
 		AllMoves[] toLeft = {AllMoves.D, AllMoves.R, AllMoves.F, AllMoves.DI, AllMoves.FI, AllMoves.RI, AllMoves.DI, AllMoves.FI, AllMoves.D, AllMoves.F};
 		AllMoves[] toRight = {AllMoves.DI, AllMoves.RI, AllMoves.FI, AllMoves.D, AllMoves.F, AllMoves.R, AllMoves.D, AllMoves.F, AllMoves.DI, AllMoves.FI};
 		
@@ -440,22 +561,24 @@ public class CubeAlgorithm {
 	
 	/**
 	 * Orients edges on last layer. Calls llEdgeCount to do so.
+	 * If lastLayerTable is set and the table is available, the whole last layer is solved here and the following stages have nothing left to do.
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void orientLLEdges(RubiksCube cube) {
-		AllMoves[] maneuver1 = {AllMoves.F, AllMoves.D, AllMoves.R, AllMoves.F, AllMoves.DI, AllMoves.FI, AllMoves.RI, AllMoves.FI};
-		AllMoves[] maneuver2 = {AllMoves.F, AllMoves.R, AllMoves.F, AllMoves.D, AllMoves.FI, AllMoves.RI, AllMoves.DI, AllMoves.FI};		
-		
+	protected void orientLLEdges(RubiksCube cube) {
+		if (lastLayerTable) {
+			LastLayerTable table = LastLayerTable.getInstance();
+			if (table != null && table.solve(cube)) return;
+		}
 		int count;
 		while ((count = llEdgeCount(cube)) != 4) {
 			if (count == 0) {
-				cube.applyMoves(maneuver1);
+				cube.applyMoves(ORIENTEDGES1);
 			}
 			else if (cube.elements[FacesEnum.D.ordinal()][3] == ColorsEnum.W && cube.elements[FacesEnum.D.ordinal()][5] == ColorsEnum.W) {
-				cube.applyMoves(maneuver1);
+				cube.applyMoves(ORIENTEDGES1);
 			}
 			else if (cube.elements[FacesEnum.D.ordinal()][3] == ColorsEnum.W && cube.elements[FacesEnum.D.ordinal()][7] == ColorsEnum.W) {
-				cube.applyMoves(maneuver2);
+				cube.applyMoves(ORIENTEDGES2);
 			}
 			else cube.rotate();
 		}
@@ -479,9 +602,7 @@ public class CubeAlgorithm {
 	 * Permutes corners on last layer until all corners are correctly positioned.
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void permuteLLCorners(RubiksCube cube) {
-		AllMoves[] cornerSwap = {AllMoves.R, AllMoves.F, AllMoves.DI, AllMoves.SR, AllMoves.FI, AllMoves.D, AllMoves.SR, AllMoves.FI, AllMoves.DI, AllMoves.SR, AllMoves.F, AllMoves.R, AllMoves.SD};
-		
+	protected void permuteLLCorners(RubiksCube cube) {
 		Corner corner, cornerLeft;
 		while(!(llCornersPlaced(cube))) {
 			corner = findCorner(cube, cube.frontColor(), cube.rightColor(), cube.downColor());
@@ -489,18 +610,18 @@ public class CubeAlgorithm {
 			if (corner.onFace(FacesEnum.F) && corner.onFace(FacesEnum.L)) {
 				AllMoves[] move = {AllMoves.RI};
 				cube.rotate();
-				cube.applyMoves(cornerSwap);
+				cube.applyMoves(CORNERSWAP);
 				cube.applyMoves(move);
 			}
 			else if (corner.onFace(FacesEnum.B) && corner.onFace(FacesEnum.R)) {
-				cube.applyMoves(cornerSwap);
+				cube.applyMoves(CORNERSWAP);
 			}
 			else if ((corner.onFace(FacesEnum.B) && corner.onFace(FacesEnum.L)) && !(cornerLeft.onFace(FacesEnum.F) && cornerLeft.onFace(FacesEnum.R))) {
 				AllMoves[] move = {AllMoves.RI};
 				cube.applyMoves(move);
-				cube.applyMoves(cornerSwap);
+				cube.applyMoves(CORNERSWAP);
 				cube.rotate();
-				cube.applyMoves(cornerSwap);
+				cube.applyMoves(CORNERSWAP);
 			}
 			AllMoves[] move = {AllMoves.RI};
 			cube.applyMoves(move);
@@ -553,43 +674,40 @@ public class CubeAlgorithm {
 	 * Orients (rotates) corners of last layer.
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void orientLLCorners(RubiksCube cube) {
-		AllMoves[] maneuver1 = {AllMoves.RI, AllMoves.FI, AllMoves.DI, AllMoves.F, AllMoves.DI, AllMoves.FI, AllMoves.SD, AllMoves.F, AllMoves.SD, AllMoves.R};
-		AllMoves[] maneuver2 = {AllMoves.RI, AllMoves.F, AllMoves.D, AllMoves.FI, AllMoves.D, AllMoves.F, AllMoves.SD, AllMoves.FI, AllMoves.SD, AllMoves.R};
-		
+	protected void orientLLCorners(RubiksCube cube) {
 		int count;
 		while ((count = llCornerCount(cube)) != 0) {
 			if (count == 4) {
 				if (cube.elements[FacesEnum.L.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.L.ordinal()][6] == ColorsEnum.W &&
 					cube.elements[FacesEnum.R.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.R.ordinal()][6] == ColorsEnum.W) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(ORIENTCORNERS1);
 				}
 				else if (cube.elements[FacesEnum.L.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.L.ordinal()][6] == ColorsEnum.W &&
 						cube.elements[FacesEnum.F.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.B.ordinal()][6] == ColorsEnum.W) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(ORIENTCORNERS1);
 				}
 				else cube.rotate();
 			}
 			if (count == 2) {
 				if (cube.elements[FacesEnum.F.ordinal()][6] == ColorsEnum.W && cube.elements[FacesEnum.R.ordinal()][4] == ColorsEnum.W) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(ORIENTCORNERS1);
 				}
 				else if (cube.elements[FacesEnum.F.ordinal()][6] == ColorsEnum.W && cube.elements[FacesEnum.B.ordinal()][4] == ColorsEnum.W) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(ORIENTCORNERS1);
 				}
 				else if (cube.elements[FacesEnum.B.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.B.ordinal()][6] == ColorsEnum.W) {
-					cube.applyMoves(maneuver2);
+					cube.applyMoves(ORIENTCORNERS2);
 				}
 				else cube.rotate();
 			}
 			if (count == 3) {
 				if (cube.elements[FacesEnum.F.ordinal()][4] == ColorsEnum.W && cube.elements[FacesEnum.R.ordinal()][4] == ColorsEnum.W &&
 					cube.elements[FacesEnum.B.ordinal()][4] == ColorsEnum.W) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(ORIENTCORNERS1);
 				}
 				else if (cube.elements[FacesEnum.F.ordinal()][6] == ColorsEnum.W && cube.elements[FacesEnum.R.ordinal()][6] == ColorsEnum.W &&
 					cube.elements[FacesEnum.B.ordinal()][6] == ColorsEnum.W) {
-					cube.applyMoves(maneuver2);
+					cube.applyMoves(ORIENTCORNERS2);
 				}
 				else cube.rotate();	
 			}
@@ -616,208 +734,81 @@ public class CubeAlgorithm {
 	 * After this cube should be solved (unless cube was manually altered to unsolvable state).
 	 * @param cube Internal representation of scanned Rubik's Cube.
 	 */
-	private void permuteLLedges(RubiksCube cube) {
-		AllMoves[] maneuver1 = {AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.D, AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.FI, AllMoves.SR, AllMoves.F, AllMoves.D, AllMoves.RI, AllMoves.SF, AllMoves.R};
-		AllMoves[] maneuver2 = {AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.DI, AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.RI, AllMoves.SF, AllMoves.RI, AllMoves.FI, AllMoves.SR, AllMoves.F, AllMoves.DI, AllMoves.RI, AllMoves.SF, AllMoves.R};
-		
+	protected void permuteLLedges(RubiksCube cube) {
 		int count = 0;
 		while ((count = llEdgeCount2(cube)) < 4) {
 //			LCD.drawString("Count: "+count, 7, 7);
 //			Button.ENTER.waitForPress();
 			if (count == 0) {
-				if ((cube.elements[3][5] == cube.rightColor()) || (cube.elements[4][5] == cube.backColor()) || (cube.elements[5][5] == cube.frontColor())) {cube.applyMoves(maneuver1);}
-				else if ((cube.elements[5][5] == cube.rightColor()) || (cube.elements[3][5] == cube.backColor()) || (cube.elements[4][5] == cube.frontColor())) {cube.applyMoves(maneuver2);}
+				if ((cube.elements[3][5] == cube.rightColor()) || (cube.elements[4][5] == cube.backColor()) || (cube.elements[5][5] == cube.frontColor())) {cube.applyMoves(PERMUTEEDGES1);}
+				else if ((cube.elements[5][5] == cube.rightColor()) || (cube.elements[3][5] == cube.backColor()) || (cube.elements[4][5] == cube.frontColor())) {cube.applyMoves(PERMUTEEDGES2);}
 				else cube.rotate();
 			}
 			else if (count == 2) {
-				LCD.clear();
-				LCD.drawString("Unsolvable Scramble", 0, 0);
-				LCD.drawString("Exit on ENTER", 0, 1);
-				Button.ENTER.waitForPress();
-				System.exit(1);
+				if (listener != null) {listener.warning("Unsolvable Scramble");}
+				return;
 			}
 			else{
 				while (cube.elements[2][5] != cube.leftColor()) {cube.rotate();}
 				if (cube.elements[5][5] == cube.frontColor()) {
-					cube.applyMoves(maneuver1);
+					cube.applyMoves(PERMUTEEDGES1);
 				}
-				else cube.applyMoves(maneuver2);
+				else cube.applyMoves(PERMUTEEDGES2);
 			}
 		}
 	}
 	
 	/**
-	 * Shows main menu and returns number of selected entry.
-	 * Entries are selected with UP- and DOWN-Button. Selected entry is highlighted.
-	 * After pressing ENTER, number of selected menu entry is returned.
-	 * @return Number of selected menu entry.
-	 */
-	public int getMenuChoice() {
-		int choice = 0;
-		int button;
-		LCD.clear();
-		do {
-			LCD.drawString("Scan and solve", 0, 0, (choice == 0));
-			LCD.drawString("Calibrate motors", 0, 1, (choice == 1));
-			LCD.drawString("Init motors", 0, 2, (choice == 2));
-			LCD.drawString("Exit program", 0, 3, (choice == 3));
-			
-			button = Button.waitForAnyPress();
-			if (button == Button.ID_UP) {
-				choice = (choice == 0) ? 3 : (choice - 1);
-			}
-			else if (button == Button.ID_DOWN) {
-				choice = (choice + 1) % 4;
-			}
-		} while (button != Button.ID_ENTER);
-		LCD.clear();
-		return choice;
+	 * Applies one solving stage to given cube-representation.
+	 * @param stage Number of stage (index in STAGES).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 */
+	protected void applyStage(int stage, RubiksCube cube) {
+		switch (stage) {
+		case 0: firstLevelEdges(cube); break;
+		case 1: firstLevelCorners(cube); break;
+		case 2: secondLevelEdges(cube); break;
+		case 3: orientLLEdges(cube); break;
+		case 4: permuteLLCorners(cube); break;
+		case 5: orientLLCorners(cube); break;
+		case 6: permuteLLedges(cube); break;
+		}
 	}
 	
 	/**
-	 * Main-method, that represent the Roberta-EV3CubeSolvers main program.
-	 * In the beginning motors are initialized, solution is searched and applied. Times are measured.
-	 * For furher information of program flow see RobertaEV3-CubeSolver Manual.
-	 * @param args
+	 * Solves given cube-representation stage by stage. Solution is shortened after each stage and written to the solution array of the cube.
+	 * Moves saved afterwards by RotationPropagation and PeepholeOptimizer are reported separately (see SolveResult.getSaved()).
+	 * Cube-representations that can't be solved (see CubeValidator) are rejected before the first stage.
+	 * If the calling thread is interrupted, solving stops after the current stage and the result is not solved.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return SolveResult object that tells whether the cube was solved (false for unsolvable scrambles).
 	 */
-	public static void main (String[] args) {
-		int scanTime, searchTime, applyTime;
-		int button;
-		
-		boolean interrupted = false;
-		
-		MotorController motors = new MotorController();
-		CubeScanner scanner = new CubeScanner(motors);
-		RubiksCube cube = new RubiksCube();
-		CubeAlgorithm solver = new CubeAlgorithm();
-		Stopwatch timer = new Stopwatch();
-		motors.init();
-		
-		outer: while (!interrupted) {
-			
-			switch (solver.getMenuChoice()) {
-			
-			case 0: timer.reset();
-					cube.resetNull();
-					scanner.scanCube(cube);
-					while (cube.completeIntegrity() == false) {
-						LCD.clear();
-						LCD.drawString("Scan Failure", 0, 0);
-						LCD.drawString("ENTER: Rescan", 0, 6);
-						LCD.drawString("ESCAPE: Menu", 0, 7);
-						do {
-							button = Button.waitForAnyPress();
-						} while (!(button == Button.ID_ENTER || button == Button.ID_ESCAPE));
-						if (button == Button.ID_ESCAPE) {motors.rotate(); continue outer;}
-						timer.reset();
-						motors.rotate();
-						cube.resetNull();
-						scanner.scanCube(cube);
-					}
-					scanTime = timer.elapsed();	
-					
-					cube.printEV3();
-					LCD.drawString("ENTER: Search", 0, 6);
-					LCD.drawString("ESCAPE: Menu", 0, 7);
-					do {
-						button = Button.waitForAnyPress();
-					} while (!(button == Button.ID_ENTER || button == Button.ID_ESCAPE));
-					if (button == Button.ID_ESCAPE) {motors.rotateInverted(); continue outer;}
-					
-					cube.setRecording(true);
-					timer.reset();
-					solver.firstLevelEdges(cube);
-					cube.shortenSolution();
-					solver.firstLevelCorners(cube);
-					cube.shortenSolution();
-					solver.secondLevelEdges(cube);
-					cube.shortenSolution();
-					solver.orientLLEdges(cube);
-					cube.shortenSolution();
-					solver.permuteLLCorners(cube);
-					cube.shortenSolution();
-					solver.orientLLCorners(cube);
-					cube.shortenSolution();
-					solver.permuteLLedges(cube);
-					cube.shortenSolution();
-					searchTime = timer.elapsed();
-							
-					LCD.clear();
-					LCD.drawString("Solution found", 0, 0);
-					LCD.drawString(""+cube.solutionIndex, 0, 1);
-					LCD.drawString("Apply?", 0, 2);
-					
-					//debug
-					cube.solutionToFile("overshoots");
-					
-					Button.ENTER.waitForPress();
-					
-					timer.reset();
-					motors.applyMoves(cube.solution, cube.solutionIndex, false);
-					applyTime = timer.elapsed();
-					
-					LCD.clear();
-					LCD.drawString("Scan: "+ scanTime/1000.0F +" s", 0, 0);
-					LCD.drawString("Search: "+ searchTime/1000.0F +" s", 0, 1);
-					LCD.drawString("Apply: "+ applyTime/1000.0F +" s", 0, 2);
-					LCD.drawString(cube.solutionIndex/(applyTime/1000.0F) + " Moves/s", 0, 3);
-					
-					LCD.drawString("ENTER: Menu", 0, 7);
-					Button.ENTER.waitForPress(); continue;
-			case 1: motors.calibrate(); continue;
-			case 2:	motors.init(); continue;
-			case 3:	interrupted = true; continue;
+	protected SolveResult solve(RubiksCube cube) {
+		int[] stageLengths = new int[STAGES.length];
+		long start = System.nanoTime();
+		String problem = CubeValidator.check(cube);
+		if (problem != null) {
+			if (listener != null) {listener.warning(problem);}
+			return new SolveResult(false, stageLengths, cube.solutionIndex, System.nanoTime() - start, 0);
+		}
+		cube.setRecording(true);
+		int first = cube.solutionIndex;
+		int previous = first;
+		for (int stage = 0; stage < STAGES.length; stage++) {
+			if (Thread.currentThread().isInterrupted()) {
+				cube.setRecording(false);
+				return new SolveResult(false, stageLengths, cube.solutionIndex, System.nanoTime() - start, 0);
 			}
+			applyStage(stage, cube);
+			cube.shortenSolution();
+			stageLengths[stage] = cube.solutionIndex - previous;
+			previous = cube.solutionIndex;
+			if (listener != null) {listener.stageFinished(stage, cube);}
 		}
+		if (rotationPropagation) {RotationPropagation.apply(cube, first);}
+		if (peephole) {PeepholeOptimizer.getInstance().optimize(cube, first);}
+		cube.setRecording(false);
+		return new SolveResult(cube.isSolved(), stageLengths, previous - cube.solutionIndex, cube.solutionIndex, System.nanoTime() - start,
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
 	}
-	
-//	/* alternate main-method used for algorithm evaluation */
-//	public static void main (String[] args) {
-//		
-//		RubiksCube cube = new RubiksCube();
-//		CubeAlgorithm solver = new CubeAlgorithm();
-//
-//		int sum, sum1, sum2, sum3, sum4, sum5, sum6, sum7;
-//		sum = 0; sum1 = 0; sum2 = 0; sum3 = 0; sum4 = 0; sum5 = 0; sum6 = 0; sum7 = 0;
-//		int a,b,c,d,e,f,g,k;
-//	
-//		for (k = 0; k < 20000; k++) {
-//			
-//			cube.resetScrambled(5000);
-//			cube.setRecording(true);
-//	
-//			solver.firstLevelEdges(cube);
-//			cube.shortenSolution();
-//			a = cube.solutionIndex;
-//			
-//			solver.firstLevelCorners(cube);
-//			cube.shortenSolution();
-//			b = cube.solutionIndex;			
-//			
-//			solver.secondLevelEdges(cube);
-//			cube.shortenSolution();
-//			c = cube.solutionIndex;
-//			
-//			solver.orientLLEdges(cube);
-//			cube.shortenSolution();
-//			d = cube.solutionIndex;
-//			
-//			solver.permuteLLCorners(cube);
-//			cube.shortenSolution();
-//			e = cube.solutionIndex;
-//			
-//			solver.orientLLCorners(cube);
-//			cube.shortenSolution();
-//			f = cube.solutionIndex;
-//			
-//			solver.permuteLLedges(cube);
-//			cube.shortenSolution();
-//			g = cube.solutionIndex;
-//			
-//			System.out.println(k+". "+cube.solutionIndex+": "+a+" "+(b-a)+" "+(c-b)+" "+(d-c)+" "+(e-d)+" "+(f-e)+" "+(g-f));
-//
-//			sum += cube.solutionIndex; sum1 += a; sum2 += (b-a); sum3 += (c-b); sum4 += (d-c); sum5 += (e-d); sum6 += (f-e); sum7 += (g-f);
-//		}
-//		System.out.println("Average "+sum/k+": "+sum1/k+" "+sum2/k+" "+sum3/k+" "+sum4/k+" "+sum5/k+" "+sum6/k+" "+sum7/k);
-//	}
 }
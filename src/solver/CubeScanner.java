@@ -1,162 +1,427 @@
 package solver;
 
-import java.io.FileWriter;
 import java.io.IOException;
 
 import enums.AllMoves;
 import enums.ColorsEnum;
-import lejos.hardware.Button;
-import lejos.hardware.lcd.LCD;
-import lejos.hardware.port.SensorPort;
-import lejos.hardware.sensor.EV3ColorSensor;
-import lejos.robotics.SampleProvider;
-import lejos.robotics.filter.MeanFilter;
+import enums.FacesEnum;
 
 /**
  * This class implements methods for scanning all colored elements of the cube and writing them into an RubiksCube object.
- * EV3-ColorSensor is used to take seven samples per element. Mean value of those seven samples is used to identify element's color.
- * Raw values and mean value are written to RubiksCube object (raw values are saved for debugging). 
+ * EV3-ColorSensor is used to take seven samples per element while the table turns. The median of the samples is classified with a ColorTable,
+ * so readings from the borders of the elements don't change the color.
+ * Reference colors are learned from every scan that is confirmed by a solve (see ColorProfile) and the ColorTable is rebuilt from them.
+ * Raw values and median value are written to a ScanResult object (raw values are saved for debugging). 
+ * Samples are taken from a ScanSource, so that recorded scans can be replayed through the same logic without hardware.
  */
 public class CubeScanner {
 	/**
-	 * MotorController object to control motors during scanning process.
+	 * Source of samples and table movements (sensor and motors or a replayed recording).
 	 */
-	private MotorController scannerMotors;
+	private ScanSource source;
 	
 	/**
-	 * SampleProvider that fetches raw RBG-values.
+	 * Indicates if raw values and estimated values are written to debug file after each scan.
 	 */
-	private SampleProvider rawRGB;
+	private boolean writeDebugFile = true;
 	
 	/**
-	 * Filter that fetches mean RGB-value.
+	 * Name of the file that raw values and estimated values are written to (binary, see DebugDumpConverter).
 	 */
-	private MeanFilter meanRGB;
-
+	protected static final String DEBUGFILE = "colorDebug.dump";
+	
+	/**
+	 * Background writer of debug file. Created with the first dump.
+	 */
+	private DebugDumpWriter debugDump;
+	
+	/**
+	 * Upper limit of RGB-values covered by the ColorTable.
+	 */
+	private final float TABLERANGE = 0.5F;
+	
+	/**
+	 * Upper limit of RGB-values covered by the ColorTable that is built from the thresholds of convertToColorsEnum().
+	 * Bins are 0.025 wide then, so the thresholds 0.05 and 0.1 lie on bin edges and every bin is classified exactly like its samples.
+	 */
+	private final float THRESHOLDRANGE = 0.8F;
+	
+	/**
+	 * Name of the file that the ColorTable is saved to.
+	 */
+	protected static final String COLORTABLEFILE = "colortable";
+	
+	/**
+	 * Name of the file that the ColorProfile is saved to.
+	 */
+	protected static final String PROFILEFILE = "colorprofile";
+	
 	/**
-	 * Number of samples that are taken per element.
+	 * Change of a reference color (see ColorProfile) after which the ColorTable is rebuilt.
 	 */
-	private final int SAMPLES = 7;
+	private final float REBUILDSHIFT = ColorTable.CONFIDENCESTEP;
+	
+	/**
+	 * Lookup table that is used to classify samples.
+	 */
+	private ColorTable colorTable;
+	
+	/**
+	 * Reference colors learned from previous scans.
+	 */
+	private ColorProfile profile;
+	
+	/**
+	 * Indicates if reference colors are learned from confirmed scans.
+	 */
+	private boolean learnColors = true;
+	
+	/**
+	 * ScanResult of the last scan if it passed completeIntegrity() and can be learned by confirmScan(), null otherwise.
+	 */
+	private ScanResult unconfirmed = null;
+	
+	/**
+	 * Indicates if the ColorProfile changed since it was saved.
+	 */
+	private boolean profileChanged = false;
+	
+	/**
+	 * Indicates if the ColorTable was rebuilt since it was saved.
+	 */
+	private boolean tableChanged = false;
+	
+	/**
+	 * White balance gains of the three color channels.
+	 */
+	private final float[] gains = new float[3];
+	
+	/**
+	 * Buffer for RGB-values scaled by white balance gains.
+	 */
+	private final float[] balanced = new float[3];
+	
+	/**
+	 * Maneuver that is applied after scanning the top face at even scanning steps.
+	 */
+	private static final AllMoves[] SCANMANEUVER1 = {AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.R, AllMoves.FI, AllMoves.SR, AllMoves.F};
+	
+	/**
+	 * Maneuver that is applied after scanning the top face at odd scanning steps.
+	 */
+	private static final AllMoves[] SCANMANEUVER2 = {AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.R, AllMoves.F, AllMoves.SR, AllMoves.FI};
+	
+	/**
+	 * Position (face * 8 + element) that an element ends up at after the scan, indexed by scanning step * 8 + element on top face.
+	 * The scanning maneuvers are always the same, so this is computed once from the internal cube representation.
+	 */
+	protected static final int[] SCANPOSITIONS = scanPositions();
+	
+	/**
+	 * ScanResult object that is reused for every scan.
+	 */
+	private final ScanResult scanResult = new ScanResult();
 	
 	/**
 	 * Constructor initializes used variables.
-	 * @param motors MotorController object to control motors during scanning process
+	 * @param source ScanSource object that samples are taken from.
 	 */
-	CubeScanner(MotorController motors) {
-		EV3ColorSensor sensor = new EV3ColorSensor(SensorPort.S1);
-		rawRGB = sensor.getRGBMode();
-		scannerMotors = motors;
-		meanRGB = new MeanFilter(rawRGB, SAMPLES);
+	CubeScanner(ScanSource source) {
+		this.source = source;
+		try {
+			profile = ColorProfile.load(PROFILEFILE);
+		} catch (IOException e) {
+			profile = new ColorProfile();
+		}
+		try {
+			colorTable = ColorTable.load(COLORTABLEFILE);
+		} catch (IOException e) {
+			colorTable = (profile.getScans() > 0) ? ColorTable.fromReferences(profile.getReferences(), TABLERANGE) : thresholdTable();
+		}
 	}
 	
 	/**
-	 * Writes raw RGB-values and mean RGB-value to file (used for debugging).
-	 * @param fileName Name of the file that values are written to.
-	 * @param cube RubiksCube object where values are taken from.
+	 * Setter-method for boolean variable "learnColors"
+	 * @param learn boolean value to write in "learnColors"
 	 */
-	private void toFile(String fileName, RubiksCube cube) {
-		try {
-			FileWriter colorWriter = new FileWriter(fileName);
+	protected void setLearnColors(boolean learn) {this.learnColors = learn;}
+	
+	/**
+	 * Setter-method for ColorTable that is used to classify samples.
+	 * @param colorTable ColorTable object
+	 */
+	protected void setColorTable(ColorTable colorTable) {this.colorTable = colorTable;}
+	
+	/**
+	 * Builds a ColorTable from the fixed thresholds of convertToColorsEnum().
+	 * This table is used until colors are calibrated.
+	 * @return ColorTable object
+	 */
+	private ColorTable thresholdTable() {
+		ColorTable table = new ColorTable(THRESHOLDRANGE);
+		float[] center = new float[3];
+		for (int i = 0; i < ColorTable.SIZE; i++) {
+			table.binCenter(i, center);
+			table.set(i, convertToColorsEnum(center, 0), ColorTable.confidence(classificationMargin(center, 0)));
+		}
+		return table;
+	}
+	
+	/**
+	 * Setter-method for boolean variable "writeDebugFile"
+	 * @param write boolean value to write in "writeDebugFile"
+	 */
+	protected void setWriteDebugFile(boolean write) {this.writeDebugFile = write;}
+	
+	/**
+	 * Simulates the scanning process on a cube-representation to find out where each scanned element is located after the scan.
+	 * For every element of the top face one marker color per scanning step is written to the cube-representation,
+	 * after the scan the positions of the markers are read.
+	 * @return Array that maps scanning step * 8 + element to final position (face * 8 + element).
+	 */
+	private static int[] scanPositions() {
+		int[] positions = new int[ScanResult.ELEMENTS];
+		RubiksCube marker = new RubiksCube();
+		for (int k = 0; k < 8; k++) {
+			marker.resetNull();
 			for (int i = 0; i < 6; i++) {
-				colorWriter.write("Face " + i + "\n");
+				marker.elements[FacesEnum.U.ordinal()][k] = ColorsEnum.values()[i];
+				marker.rotate();
+				if (i < 5) {marker.applyMoves((i % 2 == 0) ? SCANMANEUVER1 : SCANMANEUVER2);}
+			}
+			for (int face = 0; face < 6; face++) {
 				for (int j = 0; j < 8; j++) {
-					float[][] rawColors = cube.elements[i][j].getRawColors();
-					float[] colors = cube.elements[i][j].getrgbColors();
-					for (int k = 0; k < 7; k++) {
-						colorWriter.write(rawColors[k][0] + "\t" + rawColors[k][1] + "\t" + rawColors[k][2] + "\t" + "\n");
+					if (marker.elements[face][j] != ColorsEnum.N) {
+						positions[marker.elements[face][j].ordinal() * 8 + k] = face * 8 + j;
 					}
-					colorWriter.write("mean: " + colors[0] + "\t" + colors[1] + "\t" + colors[2] + "\t" + cube.elements[i][j] + "\n");
 				}
 			}
-			colorWriter.write(""+cube.completeIntegrity());
-			colorWriter.close();
-		} catch (IOException e) {e.printStackTrace();}
+		}
+		return positions;
 	}
 	
 	/**
-	 * Prints given sample-array of mean values to EV3-display.
-	 * @param sample sample-array of mean values.
+	 * Returns the ScanResult object that contains the sensor data of the last scan.
+	 * @return ScanResult object
 	 */
-	private void toDisplay(float[][] sample) {
-		for (int i = 0; i < 8; i++) {
-			for (int j = 0; j < 3; j++) {
-				LCD.drawString(Float.toString(sample[i][j]),j*5,i);
-				LCD.drawChar(' ',j*5,i);
-			}
-			LCD.drawChar(' ',15,i);
-			LCD.drawString("" + this.convertToColorsEnum(sample[i]),16,i);
-			LCD.drawChar(' ',17,i);
-		}
-		Button.ENTER.waitForPress();
+	protected ScanResult getScanResult() {
+		return scanResult;
 	}
 	
 	/**
 	 * Identifies color of one element by analyzing its RGB-values.
-	 * @param sample RGB-values
+	 * @param sample Array that contains RGB-values
+	 * @param offset Index of red value in sample-array
 	 * @return Color of cube element (ColorsEnum obejct)
 	 */
-	private ColorsEnum convertToColorsEnum(float[] sample) {
-		if (sample[0] > 0.1 && sample[1] > 0.1) {
-			if (sample[2] > 0.05) return ColorsEnum.W;
+	private ColorsEnum convertToColorsEnum(float[] sample, int offset) {
+		float red = sample[offset];
+		float green = sample[offset + 1];
+		float blue = sample[offset + 2];
+		if (red > 0.1 && green > 0.1) {
+			if (blue > 0.05) return ColorsEnum.W;
 			else return ColorsEnum.Y; 
 		}
-		else if (sample[0] < 0.1 && sample[1] > 0.1 && sample[2] < 0.1) return ColorsEnum.G;
-		else if (sample[0] < 0.05 && sample[1] < 0.1) return ColorsEnum.B;
-		else if (sample[1] < 0.1 && sample[2] < 0.1) {
-			if (sample[1] < 0.05) return ColorsEnum.R;
+		else if (red < 0.1 && green > 0.1 && blue < 0.1) return ColorsEnum.G;
+		else if (red < 0.05 && green < 0.1) return ColorsEnum.B;
+		else if (green < 0.1 && blue < 0.1) {
+			if (green < 0.05) return ColorsEnum.R;
 			else return ColorsEnum.O;
 		}
 		else return ColorsEnum.N;
 	}
 	
+	/**
+	 * Calculates how clearly given RGB-values are identified by convertToColorsEnum().
+	 * The margin is the smallest distance of a color value to one of the thresholds that decided the color.
+	 * @param sample Array that contains RGB-values
+	 * @param offset Index of red value in sample-array
+	 * @return Classification margin, 0 if color can't be identified.
+	 */
+	private float classificationMargin(float[] sample, int offset) {
+		float red = sample[offset];
+		float green = sample[offset + 1];
+		float blue = sample[offset + 2];
+		if (red > 0.1 && green > 0.1) {
+			return Math.min(Math.min(Math.abs(red - 0.1F), Math.abs(green - 0.1F)), Math.abs(blue - 0.05F));
+		}
+		else if (red < 0.1 && green > 0.1 && blue < 0.1) {
+			return Math.min(Math.min(Math.abs(red - 0.1F), Math.abs(green - 0.1F)), Math.abs(blue - 0.1F));
+		}
+		else if (red < 0.05 && green < 0.1) {
+			return Math.min(Math.abs(red - 0.05F), Math.abs(green - 0.1F));
+		}
+		else if (green < 0.1 && blue < 0.1) {
+			float margin = Math.min(Math.abs(green - 0.1F), Math.abs(blue - 0.1F));
+			return Math.min(margin, Math.min(Math.abs(green - 0.05F), Math.abs(red - 0.05F)));
+		}
+		else return 0;
+	}
+	
 	/**
 	 * Rotates cube while scanning its elements on top face.
-	 * Seven raw values and mean value of these raw samples are saved and written to RubiksCube object.
+	 * Samples are taken at angles -3...3 degrees around each element and the median of them is classified with the ColorTable.
+	 * All samples are taken even if the first ones are clear: stopping early saves no time while the table turns at constant speed
+	 * and recordings need every sample, so that replays with another ColorTable or ColorProfile stay aligned.
+	 * Raw values and median value of these raw samples are written to the given ScanResult object.
+	 * @param result ScanResult object to write values to.
+	 * @param step Scanning step (0...5), used to determine the final position of the scanned elements.
 	 * @return Array of colors that are on top face.
 	 */
-	private ColorsEnum[] scanTopFace() {
-		float[][] sample = new float[8][3]; 
-		float[][][] rawSample = new float [8][7][3];
+	private ColorsEnum[] scanTopFace(ScanResult result, int step) {
 		ColorsEnum[] topFace = new ColorsEnum[8];
 
-		scannerMotors.tableTurnScan();
+		source.startFace();
 		for (int i = 0; i < 8; i++) {
+			int position = SCANPOSITIONS[step * 8 + (i+4) % 8];
+			int count = 0;
 			for (int j = -3; j <= 3; j++) {
-				while (scannerMotors.getTableTachoCount() < ((i+1)*45 + j)) {}
-				meanRGB.fetchSample(sample[i],0);
-				rawRGB.fetchSample(rawSample[i][j+3], 0);
+				source.fetchSample((i+1)*45 + j, result.raw, ScanResult.rawIndex(position, count));
+				result.sampleCount[position] = ++count;
 			}
+			result.computeMedian(position);
+			result.colors[position] = ColorTable.color(colorTable.lookup(result.estimate, ScanResult.estimateIndex(position)));
+			topFace[(i+4) % 8] = result.colors[position];
 		}
 
-//		this.toDisplay(sample); /* for debug-use */
+//		CubeSolverMain.printScanResult(result, step); /* for debug-use */
 
-		for (int i = 0; i < 8; i++) {
-			topFace[(i+4) % 8] = convertToColorsEnum(sample[i]);
-			topFace[(i+4) % 8].setrgbColors(sample[i]);
-			topFace[(i+4) % 8].setRawColors(rawSample[i]);
-		}
 		return topFace;
 	}
 
 	/**
-	 * Scans complete cube by using scanTopFace()-method and writes recognized colors as well as raw values to RubiksCube object.
+	 * Scans complete cube by using scanTopFace()-method and writes recognized colors to RubiksCube object.
+	 * Raw values and estimated values are written to the ScanResult object that is reused for every scan.
 	 * @param cube RubiksCube object to write colors to.
 	 */
 	protected void scanCube(RubiksCube cube) {
-		AllMoves[] scanManeuver1 = {AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.R, AllMoves.FI, AllMoves.SR, AllMoves.F};
-		AllMoves[] scanManeuver2 = {AllMoves.F, AllMoves.SR, AllMoves.FI, AllMoves.R, AllMoves.F, AllMoves.SR, AllMoves.FI};
-		
+		scanCube(cube, scanResult);
+	}
+
+	/**
+	 * Classifies all elements again after scaling their values with white balance gains of the ColorProfile.
+	 * Used when the colors of a scan are incomplete, e.g. because ambient light changed since the last scan.
+	 * New colors are only kept if they pass completeIntegrity().
+	 * @param cube RubiksCube object that contains the colors of the scan.
+	 * @param result ScanResult object of the scan.
+	 */
+	private void rebalance(RubiksCube cube, ScanResult result) {
+		if (!profile.whiteBalance(result, gains)) return;
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			for (int k = 0; k < 3; k++) {balanced[k] = result.getEstimate(p, k) * gains[k];}
+			cube.elements[p / 8][p % 8] = ColorTable.color(colorTable.lookup(balanced, 0));
+		}
+		if (cube.completeIntegrity()) {
+			for (int p = 0; p < ScanResult.ELEMENTS; p++) {result.colors[p] = cube.elements[p / 8][p % 8];}
+		}
+		else {
+			for (int p = 0; p < ScanResult.ELEMENTS; p++) {cube.elements[p / 8][p % 8] = result.colors[p];}
+		}
+	}
+	
+	/**
+	 * Learns reference colors from a confirmed scan. ColorTable is rebuilt when a reference changed by more than REBUILDSHIFT.
+	 * Both are saved by close().
+	 * @param result ScanResult object of the scan.
+	 */
+	private void learn(ScanResult result) {
+		boolean first = (profile.getScans() == 0);
+		if (profile.learn(result) > REBUILDSHIFT || first) {
+			colorTable = ColorTable.fromReferences(profile.getReferences(), TABLERANGE);
+			tableChanged = true;
+		}
+		profileChanged = true;
+	}
+	
+	/**
+	 * Learns reference colors from the last scan. Called when its colors are confirmed, i.e. the cube was solved with them.
+	 * A scan that passes completeIntegrity() can still be classified wrongly, so scans are never learned before they are confirmed.
+	 * Does nothing if the last scan was incomplete or is already learned.
+	 */
+	protected void confirmScan() {
+		if (unconfirmed != null) {learn(unconfirmed);}
+		unconfirmed = null;
+	}
+
+	/**
+	 * Scans complete cube by using scanTopFace()-method and writes recognized colors to RubiksCube object.
+	 * If the colors are incomplete, the elements are classified again with white balance (see rebalance()).
+	 * Colors of a complete scan are learned by the ColorProfile after confirmScan().
+	 * @param cube RubiksCube object to write colors to.
+	 * @param result ScanResult object to write raw values and estimated values to.
+	 */
+	protected void scanCube(RubiksCube cube, ScanResult result) {
+		result.reset();
+		source.startScan();
 		for (int i = 0; i < 6; i++) {
-			cube.setTopFace(scanTopFace());
+			cube.setTopFace(scanTopFace(result, i));
 			cube.rotate();
-			scannerMotors.waitCompleteTable();
-			scannerMotors.reallignTable();
+			source.finishFace((i < 5) ? ((i % 2 == 0) ? SCANMANEUVER1 : SCANMANEUVER2) : null);
 			if (i < 5) {
-				scannerMotors.applyMoves((i % 2 == 0) ? scanManeuver1 : scanManeuver2, true);
-				cube.applyMoves((i % 2 == 0) ? scanManeuver1 : scanManeuver2);
+				cube.applyMoves((i % 2 == 0) ? SCANMANEUVER1 : SCANMANEUVER2);
 			}
 		}
 
-		this.toFile("colorDebug", cube); /*for debug-use*/
+		if (!cube.completeIntegrity()) {rebalance(cube, result);}
+		unconfirmed = (learnColors && cube.completeIntegrity()) ? result : null;
+
+		if (writeDebugFile) { /*for debug-use*/
+			if (debugDump == null) {debugDump = new DebugDumpWriter(DEBUGFILE);}
+			debugDump.submit(result, cube.completeIntegrity());
+		}
+	}
+	
+	/**
+	 * Saves learned reference colors and ColorTable and waits until the last debug file is written. Called before the program exits.
+	 */
+	protected void close() {
+		try {
+			if (tableChanged) {colorTable.save(COLORTABLEFILE);}
+			if (profileChanged) {profile.save(PROFILEFILE);}
+		} catch (IOException e) {e.printStackTrace();}
+		tableChanged = false;
+		profileChanged = false;
+		if (debugDump != null) {debugDump.flush();}
+	}
+	
+	/**
+	 * Returns the color that each position of a solved cube has, according to the orientation of the cube-representation.
+	 * @param cube RubiksCube object
+	 * @return Array of colors indexed by position (face * 8 + element).
+	 */
+	private ColorsEnum[] solvedColors(RubiksCube cube) {
+		ColorsEnum[] colors = new ColorsEnum[ScanResult.ELEMENTS];
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			switch (FacesEnum.values()[p / 8]) {
+			case U: colors[p] = cube.upColor(); break;
+			case D: colors[p] = cube.downColor(); break;
+			case L: colors[p] = cube.leftColor(); break;
+			case F: colors[p] = cube.frontColor(); break;
+			case R: colors[p] = cube.rightColor(); break;
+			case B: colors[p] = cube.backColor(); break;
+			}
+		}
+		return colors;
+	}
+	
+	/**
+	 * Scans a solved cube (placed like a cube that is going to be solved) and resets the ColorProfile to the measured colors.
+	 * A new ColorTable is built from them, used for all following scans and saved to COLORTABLEFILE.
+	 * @param cube RubiksCube object to write colors to.
+	 */
+	protected void calibrateColors(RubiksCube cube) {
+		boolean learn = learnColors;
+		learnColors = false;
+		scanCube(cube, scanResult);
+		learnColors = learn;
+		profile.reset(ColorTable.references(scanResult, solvedColors(cube)));
+		colorTable = ColorTable.fromReferences(profile.getReferences(), TABLERANGE);
+		unconfirmed = null;
+		try {
+			colorTable.save(COLORTABLEFILE);
+			profile.save(PROFILEFILE);
+		} catch (IOException e) {e.printStackTrace();}
+		tableChanged = false;
+		profileChanged = false;
 	}
 }
@@ -0,0 +1,233 @@
+package solver;
+
+import java.io.IOException;
+
+import lejos.hardware.Button;
+import lejos.hardware.lcd.LCD;
+import lejos.utility.Stopwatch;
+import enums.FacesEnum;
+
+/**
+ * This class contains the main program of the Roberta-EV3CubeSolver: menu, scanning, solving and applying the solution.
+ * All output to the EV3-display and all button handling happens here, the cube model and the solver don't depend on the EV3 hardware.
+ */
+public class CubeSolverMain {
+	
+	/**
+	 * Time budget in milliseconds for the beam search engine of PortfolioSolver, the operator confirms the solution about this time.
+	 */
+	private static final long SEARCHBUDGET = 5000;
+	
+	/**
+	 * Shows events of the solver on the EV3-display.
+	 */
+	private static class DisplayListener implements SolverListener {
+		
+		@Override
+		public void stageFinished(int stage, RubiksCube cube) {
+			LCD.drawString("Stage " + (stage + 1) + "/" + CubeAlgorithm.STAGES.length, 0, 0);
+		}
+		
+		@Override
+		public void warning(String message) {
+			LCD.drawString(message, 0, 0);
+		}
+	}
+	
+	/**
+	 * Print elements of cube-representation to EV3-Display.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 */
+	private static void printCube(RubiksCube cube) {
+		for (int i = 0; i < 6; i++) {
+			LCD.drawString(FacesEnum.values()[i] + ": ", 0, i);
+			for (int j = 0; j < 8; j++) {
+				LCD.drawString(cube.elements[i][j] + " ", 3+j*2, i);
+			}
+		}
+	}
+	
+	/**
+	 * Prints estimated values and colors of the top face scanned at given scanning step to EV3-display (for debug-use).
+	 * @param result ScanResult object that contains the estimated values.
+	 * @param step Scanning step (0...5).
+	 */
+	protected static void printScanResult(ScanResult result, int step) {
+		for (int i = 0; i < 8; i++) {
+			int position = CubeScanner.SCANPOSITIONS[step * 8 + (i+4) % 8];
+			for (int j = 0; j < 3; j++) {
+				LCD.drawString(Float.toString(result.getEstimate(position, j)),j*5,i);
+				LCD.drawChar(' ',j*5,i);
+			}
+			LCD.drawChar(' ',15,i);
+			LCD.drawString("" + result.getColor(position),16,i);
+			LCD.drawChar(' ',17,i);
+		}
+		Button.ENTER.waitForPress();
+	}
+	
+	/**
+	 * Shows main menu and returns number of selected entry.
+	 * Entries are selected with UP- and DOWN-Button. Selected entry is highlighted.
+	 * After pressing ENTER, number of selected menu entry is returned.
+	 * @return Number of selected menu entry.
+	 */
+	private static int getMenuChoice() {
+		int choice = 0;
+		int button;
+		LCD.clear();
+		do {
+			LCD.drawString("Scan and solve", 0, 0, (choice == 0));
+			LCD.drawString("Calibrate motors", 0, 1, (choice == 1));
+			LCD.drawString("Init motors", 0, 2, (choice == 2));
+			LCD.drawString("Calibrate colors", 0, 3, (choice == 3));
+			LCD.drawString("Exit program", 0, 4, (choice == 4));
+			
+			button = Button.waitForAnyPress();
+			if (button == Button.ID_UP) {
+				choice = (choice == 0) ? 4 : (choice - 1);
+			}
+			else if (button == Button.ID_DOWN) {
+				choice = (choice + 1) % 5;
+			}
+		} while (button != Button.ID_ENTER);
+		LCD.clear();
+		return choice;
+	}
+	
+	/**
+	 * Saves the raw sensor stream of the last scan to the next free recording file, so that it can be replayed with ScanReplay.
+	 * @param recording ScanRecording object of the last scan.
+	 */
+	private static void saveRecording(ScanRecording recording) {
+		try {
+			recording.save(ScanRecording.nextFileName("scanRecording"));
+		} catch (IOException e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Main-method, that represent the Roberta-EV3CubeSolvers main program.
+	 * In the beginning motors are initialized, solution is searched and applied. Times are measured.
+	 * For furher information of program flow see RobertaEV3-CubeSolver Manual.
+	 * @param args
+	 */
+	public static void main (String[] args) {
+		int scanTime, searchTime, applyTime;
+		int button;
+		String problem;
+		
+		boolean interrupted = false;
+		
+		MotorController motors = new MotorController();
+		ScanRecording recording = new ScanRecording();
+		CubeScanner scanner = new CubeScanner(new SensorScanSource(motors, recording));
+		RubiksCube cube = new RubiksCube();
+		PortfolioSolver solver = new PortfolioSolver(SEARCHBUDGET);
+		SolutionCache cache = SolutionCache.getInstance();
+		RubiksCube scanned = new RubiksCube();
+		SolverListener listener = new DisplayListener();
+		SolveResult result;
+		boolean searching;
+		cube.setListener(listener);
+		Stopwatch timer = new Stopwatch();
+		motors.init();
+		
+		outer: while (!interrupted) {
+			
+			switch (getMenuChoice()) {
+			
+			case 0: timer.reset();
+					cube.resetNull();
+					scanner.scanCube(cube);
+					saveRecording(recording);
+					while ((problem = CubeValidator.check(cube)) != null) {
+						LCD.clear();
+						LCD.drawString("Scan Failure", 0, 0);
+						LCD.drawString(problem.substring(0, Math.min(problem.length(), 18)), 0, 1);
+						if (problem.length() > 18) {LCD.drawString(problem.substring(18), 0, 2);}
+						LCD.drawString("ENTER: Rescan", 0, 6);
+						LCD.drawString("ESCAPE: Menu", 0, 7);
+						do {
+							button = Button.waitForAnyPress();
+						} while (!(button == Button.ID_ENTER || button == Button.ID_ESCAPE));
+						if (button == Button.ID_ESCAPE) {motors.rotate(); continue outer;}
+						timer.reset();
+						motors.rotate();
+						cube.resetNull();
+						scanner.scanCube(cube);
+						saveRecording(recording);
+					}
+					scanTime = timer.elapsed();	
+					
+					printCube(cube);
+					LCD.drawString("ENTER: Search", 0, 6);
+					LCD.drawString("ESCAPE: Menu", 0, 7);
+					do {
+						button = Button.waitForAnyPress();
+					} while (!(button == Button.ID_ENTER || button == Button.ID_ESCAPE));
+					if (button == Button.ID_ESCAPE) {motors.rotateInverted(); continue outer;}
+					
+					LCD.clear();
+					timer.reset();
+					result = cache.apply(cube);
+					searching = (result == null);
+					if (searching) {
+						scanned.copyFrom(cube);
+						if (!solver.start(cube)) {result = solver.finish(cube);}
+					}
+					searchTime = timer.elapsed();
+					
+					if (result != null && !result.isSolved()) {
+						LCD.clear();
+						LCD.drawString("Unsolvable Scramble", 0, 0);
+						LCD.drawString("ENTER: Menu", 0, 7);
+						Button.ENTER.waitForPress();
+						motors.rotateInverted(); continue;
+					}
+					
+					LCD.clear();
+					LCD.drawString("Solution found", 0, 0);
+					LCD.drawString(""+(searching ? solver.getBestLength() : cube.solutionIndex), 0, 1);
+					LCD.drawString("Apply?", 0, 2);
+					
+					Button.ENTER.waitForPress();
+					
+					if (searching) {
+						result = solver.finish(cube);
+						cache.put(scanned, cube.solution, scanned.solutionIndex, cube.solutionIndex);
+					}
+					
+					//debug
+					cube.solutionToFile("overshoots");
+					
+					timer.reset();
+					motors.applyMoves(cube.solution, cube.solutionIndex, false);
+					applyTime = timer.elapsed();
+					scanner.confirmScan();
+					
+					LCD.clear();
+					LCD.drawString("Scan: "+ scanTime/1000.0F +" s", 0, 0);
+					LCD.drawString("Search: "+ searchTime/1000.0F +" s", 0, 1);
+					LCD.drawString("Apply: "+ applyTime/1000.0F +" s", 0, 2);
+					LCD.drawString(cube.solutionIndex/(applyTime/1000.0F) + " Moves/s", 0, 3);
+					
+					LCD.drawString("ENTER: Menu", 0, 7);
+					Button.ENTER.waitForPress(); continue;
+			case 1: motors.calibrate(); continue;
+			case 2:	motors.init(); continue;
+			case 3:	LCD.drawString("Insert solved cube", 0, 0);
+					LCD.drawString("ENTER: Scan", 0, 6);
+					Button.ENTER.waitForPress();
+					LCD.clear();
+					cube.resetNull();
+					scanner.calibrateColors(cube);
+					motors.rotate();
+					LCD.drawString("Colors calibrated", 0, 0);
+					LCD.drawString("ENTER: Menu", 0, 7);
+					Button.ENTER.waitForPress(); continue;
+			case 4:	interrupted = true; continue;
+			}
+		}
+		scanner.close();
+	}
+}
@@ -0,0 +1,370 @@
+package solver;
+
+import enums.AllMoves;
+import enums.ColorsEnum;
+
+/**
+ * Cubie level representation of the Rubik's Cube: position and orientation of each corner and edge.
+ * Unlike the facelet colors in RubiksCube, every array of valid values describes a valid cube,
+ * so random states and state indices can be computed directly instead of by applying moves.
+ * Corners and edges are numbered like in Kociemba's two-phase algorithm, e.g. corner 0 is URF and edge 0 is UR.
+ * Colors are interpreted in the frame of the solved cube (color ordinal = face ordinal), the orientation of the whole cube is kept in rotations.
+ */
+public class CubeState {
+
+	/**
+	 * Number of corners.
+	 */
+	protected static final int CORNERS = 8;
+
+	/**
+	 * Number of edges.
+	 */
+	protected static final int EDGES = 12;
+
+	/**
+	 * Facelets (face * 8 + element) of each corner position, starting with the U- or D-facelet and going clockwise.
+	 */
+	protected static final int[][] CORNERFACELETS = {
+		{4, 32, 26}, {6, 24, 18}, {0, 16, 42}, {2, 40, 34},
+		{10, 28, 38}, {8, 20, 30}, {14, 44, 22}, {12, 36, 46}};
+
+	/**
+	 * Facelets (face * 8 + element) of each edge position, starting with the facelet that defines orientation.
+	 */
+	protected static final int[][] EDGEFACELETS = {
+		{3, 33}, {5, 25}, {7, 17}, {1, 41}, {11, 37}, {9, 29},
+		{15, 21}, {13, 45}, {27, 39}, {31, 19}, {43, 23}, {47, 35}};
+
+	/**
+	 * Colors (ordinals) of each corner in the order of CORNERFACELETS, that is in the solved state.
+	 */
+	private static final int[][] CORNERCOLORS = new int[CORNERS][3];
+
+	/**
+	 * Colors (ordinals) of each edge in the order of EDGEFACELETS, that is in the solved state.
+	 */
+	private static final int[][] EDGECOLORS = new int[EDGES][2];
+
+	static {
+		for (int i = 0; i < CORNERS; i++) {
+			for (int k = 0; k < 3; k++) {CORNERCOLORS[i][k] = CORNERFACELETS[i][k] / 8;}
+		}
+		for (int i = 0; i < EDGES; i++) {
+			for (int k = 0; k < 2; k++) {EDGECOLORS[i][k] = EDGEFACELETS[i][k] / 8;}
+		}
+	}
+
+	/**
+	 * Number of moves the robot can execute (all moves except N).
+	 */
+	protected static final int MOVECOUNT = 9;
+
+	/**
+	 * Effect of each move (indexed by ordinal of AllMoves), that is the state after applying the move to the solved cube.
+	 * Derived from the facelet moves of RubiksCube, so both representations always agree.
+	 */
+	protected static final CubeState[] MOVES = new CubeState[MOVECOUNT];
+
+	static {
+		RubiksCube cube = new RubiksCube();
+		for (int m = 0; m < MOVECOUNT; m++) {
+			cube.resetSolved();
+			cube.applyMoves(new AllMoves[] {AllMoves.values()[m]});
+			MOVES[m] = new CubeState();
+			MOVES[m].fromCube(cube);
+		}
+	}
+
+	/**
+	 * Corner permutation: number of the corner at each corner position.
+	 */
+	protected final byte[] cp = new byte[CORNERS];
+
+	/**
+	 * Corner orientation at each corner position (0...2, number of clockwise twists).
+	 */
+	protected final byte[] co = new byte[CORNERS];
+
+	/**
+	 * Edge permutation: number of the edge at each edge position.
+	 */
+	protected final byte[] ep = new byte[EDGES];
+
+	/**
+	 * Edge orientation at each edge position (0 or 1).
+	 */
+	protected final byte[] eo = new byte[EDGES];
+
+	/**
+	 * Number of 90 degrees rotations of the whole cube (0...3), same meaning as in RubiksCube.
+	 */
+	protected int rotations = 0;
+
+	/**
+	 * Constructor that creates a solved state.
+	 */
+	public CubeState() {
+		resetSolved();
+	}
+
+	/**
+	 * Reset state to solved state.
+	 */
+	protected void resetSolved() {
+		for (int i = 0; i < CORNERS; i++) {cp[i] = (byte) i; co[i] = 0;}
+		for (int i = 0; i < EDGES; i++) {ep[i] = (byte) i; eo[i] = 0;}
+		rotations = 0;
+	}
+
+	/**
+	 * Copies another state into this one.
+	 * @param other CubeState object to copy.
+	 */
+	protected void copyFrom(CubeState other) {
+		System.arraycopy(other.cp, 0, cp, 0, CORNERS);
+		System.arraycopy(other.co, 0, co, 0, CORNERS);
+		System.arraycopy(other.ep, 0, ep, 0, EDGES);
+		System.arraycopy(other.eo, 0, eo, 0, EDGES);
+		rotations = other.rotations;
+	}
+
+	/**
+	 * Sets this state to the product a * b, that is state a followed by the moves that lead from the solved state to state b.
+	 * This object must not be a or b.
+	 * @param a First state.
+	 * @param b Second state.
+	 */
+	protected void multiply(CubeState a, CubeState b) {
+		for (int i = 0; i < CORNERS; i++) {
+			cp[i] = a.cp[b.cp[i]];
+			co[i] = (byte)((a.co[b.cp[i]] + b.co[i]) % 3);
+		}
+		for (int i = 0; i < EDGES; i++) {
+			ep[i] = a.ep[b.ep[i]];
+			eo[i] = (byte)(a.eo[b.ep[i]] ^ b.eo[i]);
+		}
+		rotations = (a.rotations + b.rotations) & 3;
+	}
+
+	/**
+	 * Applies a move to this state.
+	 * @param move Move to apply (N is ignored).
+	 */
+	protected void applyMove(AllMoves move) {
+		if (move == AllMoves.N) return;
+		CubeState before = new CubeState();
+		before.copyFrom(this);
+		multiply(before, MOVES[move.ordinal()]);
+	}
+
+	/**
+	 * Returns corners and rotations of this state packed into one number (5 bits per corner position: corner and orientation).
+	 * Together with edgeKey() it identifies the state.
+	 * @return Key of corners.
+	 */
+	protected long cornerKey() {
+		long key = rotations;
+		for (int i = 0; i < CORNERS; i++) {key = (key << 5) | (cp[i] << 2) | co[i];}
+		return key;
+	}
+
+	/**
+	 * Returns edges of this state packed into one number (5 bits per edge position: edge and orientation).
+	 * @return Key of edges.
+	 */
+	protected long edgeKey() {
+		long key = 0;
+		for (int i = 0; i < EDGES; i++) {key = (key << 5) | (ep[i] << 1) | eo[i];}
+		return key;
+	}
+
+	/**
+	 * Sets this state from the keys returned by cornerKey() and edgeKey().
+	 * @param cornerKey Key of corners and rotations.
+	 * @param edgeKey Key of edges.
+	 */
+	protected void fromKeys(long cornerKey, long edgeKey) {
+		for (int i = CORNERS - 1; i >= 0; i--) {
+			cp[i] = (byte) ((cornerKey >> 2) & 7);
+			co[i] = (byte) (cornerKey & 3);
+			cornerKey >>= 5;
+		}
+		rotations = (int) cornerKey;
+		for (int i = EDGES - 1; i >= 0; i--) {
+			ep[i] = (byte) ((edgeKey >> 1) & 15);
+			eo[i] = (byte) (edgeKey & 1);
+			edgeKey >>= 5;
+		}
+	}
+
+	/**
+	 * Reset state to a uniformly distributed random state, with the whole cube in its initial orientation.
+	 * Needs a constant number of random values, independent of any scramble length.
+	 * @param random Generator the state is drawn from.
+	 */
+	protected void resetRandom(SplitMixRandom random) {
+		rotations = 0;
+		int cornerParity = shuffle(cp, random);
+		int edgeParity = shuffle(ep, random);
+		if (cornerParity != edgeParity) {
+			byte buffer = ep[EDGES - 1];
+			ep[EDGES - 1] = ep[EDGES - 2];
+			ep[EDGES - 2] = buffer;
+		}
+		int twist = 0;
+		for (int i = 0; i < CORNERS - 1; i++) {
+			co[i] = (byte) random.nextInt(3);
+			twist += co[i];
+		}
+		co[CORNERS - 1] = (byte)((3 - twist % 3) % 3);
+		int flip = 0;
+		for (int i = 0; i < EDGES - 1; i++) {
+			eo[i] = (byte) random.nextInt(2);
+			flip += eo[i];
+		}
+		eo[EDGES - 1] = (byte)(flip & 1);
+	}
+
+	/**
+	 * Fills array with a random permutation (Fisher-Yates).
+	 * @param perm Array to fill.
+	 * @param random Generator the permutation is drawn from.
+	 * @return Parity of permutation (0 even, 1 odd).
+	 */
+	private static int shuffle(byte[] perm, SplitMixRandom random) {
+		int parity = 0;
+		for (int i = 0; i < perm.length; i++) {perm[i] = (byte) i;}
+		for (int i = perm.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			if (j != i) {
+				byte buffer = perm[i];
+				perm[i] = perm[j];
+				perm[j] = buffer;
+				parity ^= 1;
+			}
+		}
+		return parity;
+	}
+
+	/**
+	 * Returns parity of a permutation (0 even, 1 odd).
+	 * @param perm Permutation.
+	 * @return Parity.
+	 */
+	protected static int parity(byte[] perm) {
+		int parity = 0;
+		for (int i = 0; i < perm.length; i++) {
+			for (int j = i + 1; j < perm.length; j++) {
+				if (perm[i] > perm[j]) parity ^= 1;
+			}
+		}
+		return parity;
+	}
+
+	/**
+	 * Checks if state can be reached from the solved state: permutations are complete, twist and flip add up and parities fit.
+	 * Whole cube rotations change the parities of corners and edges together, so only their relation to the rotations is checked.
+	 * @return boolean variable
+	 */
+	protected boolean isValid() {
+		int cornersSeen = 0, edgesSeen = 0, twist = 0, flip = 0;
+		for (int i = 0; i < CORNERS; i++) {
+			if (cp[i] < 0 || cp[i] >= CORNERS || co[i] < 0 || co[i] > 2) return false;
+			cornersSeen |= 1 << cp[i];
+			twist += co[i];
+		}
+		for (int i = 0; i < EDGES; i++) {
+			if (ep[i] < 0 || ep[i] >= EDGES || eo[i] < 0 || eo[i] > 1) return false;
+			edgesSeen |= 1 << ep[i];
+			flip += eo[i];
+		}
+		if (cornersSeen != (1 << CORNERS) - 1 || edgesSeen != (1 << EDGES) - 1) return false;
+		if (twist % 3 != 0 || flip % 2 != 0) return false;
+		return (parity(cp) ^ parity(ep)) == (rotations & 1);
+	}
+
+	/**
+	 * Writes this state to the elements of a cube-representation. Solution of the cube is cleared.
+	 * @param cube RubiksCube object to write to.
+	 */
+	protected void toCube(RubiksCube cube) {
+		cube.resetSolved();
+		for (int r = 0; r < (4 - rotations) % 4; r++) {cube.rotate();}
+		ColorsEnum[] colors = ColorsEnum.values();
+		for (int i = 0; i < CORNERS; i++) {
+			for (int k = 0; k < 3; k++) {
+				int facelet = CORNERFACELETS[i][(k + co[i]) % 3];
+				cube.elements[facelet / 8][facelet % 8] = colors[CORNERCOLORS[cp[i]][k]];
+			}
+		}
+		for (int i = 0; i < EDGES; i++) {
+			for (int k = 0; k < 2; k++) {
+				int facelet = EDGEFACELETS[i][(k + eo[i]) % 2];
+				cube.elements[facelet / 8][facelet % 8] = colors[EDGECOLORS[ep[i]][k]];
+			}
+		}
+	}
+
+	/**
+	 * Reads this state from the elements of a cube-representation.
+	 * @param cube RubiksCube object to read from.
+	 * @return False if elements don't form existing corners and edges (state is undefined then).
+	 */
+	protected boolean fromCube(RubiksCube cube) {
+		rotations = cube.getRotations();
+		for (int i = 0; i < CORNERS; i++) {
+			if (!readCorner(cube, i)) return false;
+		}
+		for (int i = 0; i < EDGES; i++) {
+			if (!readEdge(cube, i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads corner and orientation at one corner position from the elements of a cube-representation.
+	 * @param cube RubiksCube object to read from.
+	 * @param i Corner position.
+	 * @return False if the colors at this position don't form an existing corner.
+	 */
+	protected boolean readCorner(RubiksCube cube, int i) {
+		int[] color = new int[3];
+		int ori = -1;
+		for (int k = 0; k < 3; k++) {
+			ColorsEnum c = cube.elements[CORNERFACELETS[i][k] / 8][CORNERFACELETS[i][k] % 8];
+			if (c == null || c == ColorsEnum.N) return false;
+			color[k] = c.ordinal();
+			if (color[k] < 2) ori = k;
+		}
+		if (ori < 0) return false;
+		int j = 0;
+		while (j < CORNERS && !(CORNERCOLORS[j][0] == color[ori] && CORNERCOLORS[j][1] == color[(ori + 1) % 3]
+				&& CORNERCOLORS[j][2] == color[(ori + 2) % 3])) j++;
+		if (j == CORNERS) return false;
+		cp[i] = (byte) j;
+		co[i] = (byte) ori;
+		return true;
+	}
+
+	/**
+	 * Reads edge and orientation at one edge position from the elements of a cube-representation.
+	 * @param cube RubiksCube object to read from.
+	 * @param i Edge position.
+	 * @return False if the colors at this position don't form an existing edge.
+	 */
+	protected boolean readEdge(RubiksCube cube, int i) {
+		ColorsEnum c0 = cube.elements[EDGEFACELETS[i][0] / 8][EDGEFACELETS[i][0] % 8];
+		ColorsEnum c1 = cube.elements[EDGEFACELETS[i][1] / 8][EDGEFACELETS[i][1] % 8];
+		if (c0 == null || c1 == null) return false;
+		int j = 0;
+		while (j < EDGES) {
+			if (EDGECOLORS[j][0] == c0.ordinal() && EDGECOLORS[j][1] == c1.ordinal()) {eo[i] = 0; break;}
+			if (EDGECOLORS[j][0] == c1.ordinal() && EDGECOLORS[j][1] == c0.ordinal()) {eo[i] = 1; break;}
+			j++;
+		}
+		if (j == EDGES) return false;
+		ep[i] = (byte) j;
+		return true;
+	}
+}
@@ -0,0 +1,144 @@
+package solver;
+
+import enums.AllMoves;
+import enums.ColorsEnum;
+import enums.FacesEnum;
+
+/**
+ * Checks a scanned cube-representation before any search is started.
+ * A cube can only be solved if every color appears 8 times, every corner and edge position holds an existing piece, no piece appears twice,
+ * the twists of all corners and the flips of all edges add up to zero and corner and edge permutation have the same parity
+ * (taking rotations of the whole cube into account). All checks need a fixed number of steps.
+ * Problems are described by a short text that names the suspect stickers as face and element, e.g. "U4", so scan errors can be found.
+ * Usage: CubeValidator [-scrambles n] [-seed n] checks that Y and W stickers mixed up on scrambled cubes are rejected
+ * (Y and W are the colors the sensor confuses most).
+ */
+public class CubeValidator {
+
+	/**
+	 * Returns name of a sticker.
+	 * @param facelet Facelet (face * 8 + element).
+	 * @return Face followed by element, e.g. "F3".
+	 */
+	private static String sticker(int facelet) {
+		return FacesEnum.values()[facelet / 8].toString() + (facelet % 8);
+	}
+
+	/**
+	 * Returns names of all stickers of a piece.
+	 * @param facelets Facelets of the piece.
+	 * @return Sticker names separated by blanks.
+	 */
+	private static String stickers(int[] facelets) {
+		StringBuilder names = new StringBuilder();
+		for (int facelet : facelets) {
+			if (names.length() > 0) names.append(' ');
+			names.append(sticker(facelet));
+		}
+		return names.toString();
+	}
+
+	/**
+	 * Checks if a cube-representation can be solved.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Description of the first problem found, null if the cube can be solved.
+	 */
+	protected static String check(RubiksCube cube) {
+		int[] counts = new int[ColorsEnum.values().length];
+		for (int f = 0; f < 6; f++) {
+			for (int i = 0; i < 8; i++) {
+				if (cube.elements[f][i] == null || cube.elements[f][i] == ColorsEnum.N) return "Unknown color " + sticker(f * 8 + i);
+				counts[cube.elements[f][i].ordinal()]++;
+			}
+		}
+		for (int c = 0; c < counts.length; c++) {
+			if (c != ColorsEnum.N.ordinal() && counts[c] != 8) return "Color " + ColorsEnum.values()[c] + ": " + counts[c] + "x";
+		}
+
+		CubeState state = new CubeState();
+		state.rotations = cube.getRotations();
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			if (!state.readCorner(cube, i)) return "Bad corner " + stickers(CubeState.CORNERFACELETS[i]);
+			for (int k = 0; k < i; k++) {
+				if (state.cp[k] == state.cp[i]) return "Same corner " + stickers(CubeState.CORNERFACELETS[k]) + " / " + stickers(CubeState.CORNERFACELETS[i]);
+			}
+		}
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			if (!state.readEdge(cube, i)) return "Bad edge " + stickers(CubeState.EDGEFACELETS[i]);
+			for (int k = 0; k < i; k++) {
+				if (state.ep[k] == state.ep[i]) return "Same edge " + stickers(CubeState.EDGEFACELETS[k]) + " / " + stickers(CubeState.EDGEFACELETS[i]);
+			}
+		}
+
+		int twist = 0, flip = 0;
+		for (int i = 0; i < CubeState.CORNERS; i++) {twist += state.co[i];}
+		for (int i = 0; i < CubeState.EDGES; i++) {flip += state.eo[i];}
+		if (twist % 3 != 0) return "Twisted corner";
+		if (flip % 2 != 0) return "Flipped edge";
+		if (!state.isValid()) return "Swapped pieces";
+		return null;
+	}
+
+	/**
+	 * Returns true if a cube-representation is rejected by check() and by CubeState.fromCube() or isValid().
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return boolean variable
+	 */
+	private static boolean rejected(RubiksCube cube) {
+		CubeState state = new CubeState();
+		return check(cube) != null && !(state.fromCube(cube) && state.isValid());
+	}
+
+	/**
+	 * Scrambles solved cubes (the first one stays solved), accepts every scramble and rejects it after one Y sticker is changed to W (or the other way)
+	 * and after a Y sticker is swapped with a W sticker. Swapped stickers can still form existing pieces, so those cubes
+	 * have to be rejected by fromCube() and isValid() too, otherwise CubeAlgorithm would never finish.
+	 * Prints every case that is handled wrong.
+	 * @param args Optional "-scrambles n" and "-seed n".
+	 */
+	public static void main(String[] args) {
+		int scrambles = 100;
+		long seed = 1;
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-scrambles")) scrambles = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+		}
+		SplitMixRandom random = new SplitMixRandom(seed);
+		RubiksCube cube = new RubiksCube();
+		int cases = 0, failures = 0;
+		for (int k = 0; k < scrambles; k++) {
+			cube.resetSolved();
+			for (int i = 0; k > 0 && i < 30; i++) {cube.applyMoves(new AllMoves[] {AllMoves.values()[random.nextInt(CubeState.MOVECOUNT)]});}
+			cases++;
+			if (check(cube) != null) {
+				failures++;
+				System.out.println(k + ": scramble rejected: " + check(cube));
+			}
+			for (int a = 0; a < 48; a++) {
+				ColorsEnum first = cube.elements[a / 8][a % 8];
+				if (first != ColorsEnum.Y && first != ColorsEnum.W) continue;
+				cube.elements[a / 8][a % 8] = (first == ColorsEnum.Y) ? ColorsEnum.W : ColorsEnum.Y;
+				cases++;
+				if (check(cube) == null) {
+					failures++;
+					System.out.println(k + ": " + sticker(a) + " changed to " + cube.elements[a / 8][a % 8] + " accepted");
+				}
+				cube.elements[a / 8][a % 8] = first;
+				for (int b = a + 1; b < 48; b++) {
+					ColorsEnum second = cube.elements[b / 8][b % 8];
+					if (second == first || (second != ColorsEnum.Y && second != ColorsEnum.W)) continue;
+					cube.elements[a / 8][a % 8] = second;
+					cube.elements[b / 8][b % 8] = first;
+					cases++;
+					if (!rejected(cube)) {
+						failures++;
+						System.out.println(k + ": " + sticker(a) + " swapped with " + sticker(b) + " accepted");
+					}
+					cube.elements[a / 8][a % 8] = first;
+					cube.elements[b / 8][b % 8] = second;
+				}
+			}
+		}
+		System.out.println(cases + " cases, " + failures + " handled wrong");
+	}
+}
@@ -0,0 +1,44 @@
+package solver;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Desktop tool that converts a binary debug dump (see DebugDumpWriter) to text.
+ * Text format: raw RGB-values of every sample and median RGB-value with recognized color for every element, grouped by face,
+ * followed by the result of the integrity check.
+ * Usage: DebugDumpConverter dumpfile [textfile]
+ */
+public class DebugDumpConverter {
+	
+	/**
+	 * Converts the given dump file. Text is written to textfile or, if it is missing, to dumpfile.txt.
+	 * @param args Name of dump file and optional name of text file.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: DebugDumpConverter dumpfile [textfile]");
+			return;
+		}
+		String textFile = (args.length > 1) ? args[1] : args[0] + ".txt";
+		ScanResult result = new ScanResult();
+		try {
+			boolean integrity = DebugDumpWriter.read(args[0], result);
+			FileWriter colorWriter = new FileWriter(textFile);
+			for (int i = 0; i < 6; i++) {
+				colorWriter.write("Face " + i + "\n");
+				for (int j = 0; j < 8; j++) {
+					int position = i * 8 + j;
+					for (int k = 0; k < result.getSampleCount(position); k++) {
+						colorWriter.write(result.getRaw(position, k, 0) + "\t" + result.getRaw(position, k, 1) + "\t" + result.getRaw(position, k, 2) + "\t" + "\n");
+					}
+					colorWriter.write("median: " + result.getEstimate(position, 0) + "\t" + result.getEstimate(position, 1) + "\t" + result.getEstimate(position, 2) + "\t" + result.getColor(position) + "\n");
+				}
+			}
+			colorWriter.write(""+integrity);
+			colorWriter.close();
+		} catch (IOException e) {
+			System.out.println(args[0] + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package solver;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import enums.ColorsEnum;
+
+/**
+ * Writes the sensor data of scans to a binary debug file on a background thread, so that scanning doesn't wait for the slow flash memory.
+ * A scan is copied into one of two preallocated buffers and handed off to the writer thread. If both buffers are busy, the dump is skipped.
+ * Record format: magic number, version, integrity flag; per element (face * 8 + element) color ordinal, number of samples,
+ * estimated RGB-values and raw RGB-values of all samples (floats). DebugDumpConverter converts records back to text.
+ */
+class DebugDumpWriter implements Runnable {
+	
+	/**
+	 * Magic number at the beginning of every dump file ("CDBG").
+	 */
+	static final int MAGIC = 0x43444247;
+	
+	/**
+	 * Version of file format.
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * Maximum size of one record in bytes.
+	 */
+	private static final int RECORDSIZE = 6 + ScanResult.ELEMENTS * (2 + 3 * 4 + ScanResult.SAMPLES * 3 * 4);
+	
+	/**
+	 * Longest time in milliseconds that flush() waits for the writer thread.
+	 */
+	private static final long FLUSHTIMEOUT = 5000;
+	
+	/**
+	 * One scan that waits to be written.
+	 */
+	private static class Record {
+		
+		/**
+		 * Copy of the sensor data.
+		 */
+		final ScanResult result = new ScanResult();
+		
+		/**
+		 * Result of completeIntegrity() of the scanned cube.
+		 */
+		boolean integrity;
+	}
+	
+	/**
+	 * Name of the file that records are written to.
+	 */
+	private final String fileName;
+	
+	/**
+	 * Records that can be filled with the next scan.
+	 */
+	private final BlockingQueue<Record> free = new ArrayBlockingQueue<Record>(2);
+	
+	/**
+	 * Records that wait to be written.
+	 */
+	private final BlockingQueue<Record> pending = new ArrayBlockingQueue<Record>(2);
+	
+	/**
+	 * Buffer that one record is encoded into before it is written.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocate(RECORDSIZE);
+	
+	/**
+	 * Background thread that writes the records.
+	 */
+	private final Thread writer;
+	
+	/**
+	 * Constructor that starts the writer thread.
+	 * @param fileName Name of the file that records are written to. The file is overwritten with every scan.
+	 */
+	DebugDumpWriter(String fileName) {
+		this.fileName = fileName;
+		free.add(new Record());
+		free.add(new Record());
+		writer = new Thread(this, "DebugDumpWriter");
+		writer.setDaemon(true);
+		writer.setPriority(Thread.MIN_PRIORITY);
+		writer.start();
+	}
+	
+	/**
+	 * Copies sensor data of a scan and hands it off to the writer thread. Returns immediately.
+	 * @param result ScanResult object of the scan.
+	 * @param integrity Result of completeIntegrity() of the scanned cube.
+	 * @return false if both buffers were busy and the scan was not dumped.
+	 */
+	boolean submit(ScanResult result, boolean integrity) {
+		Record record = free.poll();
+		if (record == null) return false;
+		result.copyTo(record.result);
+		record.integrity = integrity;
+		pending.add(record);
+		return true;
+	}
+	
+	/**
+	 * Waits until all submitted scans are written, but at most FLUSHTIMEOUT milliseconds.
+	 */
+	void flush() {
+		long deadline = System.currentTimeMillis() + FLUSHTIMEOUT;
+		while (free.remainingCapacity() > 0 && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Writer thread: takes pending records and writes them to the dump file.
+	 * A record that can't be written is dropped, its buffer is always returned.
+	 */
+	public void run() {
+		while (true) {
+			Record record;
+			try {
+				record = pending.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				write(record);
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			} finally {
+				free.add(record);
+			}
+		}
+	}
+	
+	/**
+	 * Encodes one record and writes it to the dump file with a single channel write.
+	 * @param record Record to write.
+	 * @throws IOException if file can't be written.
+	 */
+	private void write(Record record) throws IOException {
+		ScanResult result = record.result;
+		buffer.clear();
+		buffer.putInt(MAGIC);
+		buffer.put((byte) VERSION);
+		buffer.put((byte) (record.integrity ? 1 : 0));
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			buffer.put((byte) result.getColor(p).ordinal());
+			buffer.put((byte) result.getSampleCount(p));
+			for (int k = 0; k < 3; k++) {buffer.putFloat(result.getEstimate(p, k));}
+			for (int s = 0; s < result.getSampleCount(p); s++) {
+				for (int k = 0; k < 3; k++) {buffer.putFloat(result.getRaw(p, s, k));}
+			}
+		}
+		buffer.flip();
+		FileOutputStream out = new FileOutputStream(fileName);
+		try {
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining()) {channel.write(buffer);}
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads one record from a dump file.
+	 * @param fileName Name of the dump file.
+	 * @param result ScanResult object that the sensor data is written to.
+	 * @return Integrity flag of the record.
+	 * @throws IOException if file can't be read or is no dump file.
+	 */
+	static boolean read(String fileName, ScanResult result) throws IOException {
+		FileInputStream in = new FileInputStream(fileName);
+		ByteBuffer data;
+		try {
+			FileChannel channel = in.getChannel();
+			data = ByteBuffer.allocate((int) channel.size());
+			while (data.hasRemaining() && channel.read(data) >= 0) {}
+		} finally {
+			in.close();
+		}
+		data.flip();
+		if (data.remaining() < 6 || data.getInt() != MAGIC || data.get() != VERSION) {throw new IOException(fileName + " is no debug dump");}
+		boolean integrity = (data.get() != 0);
+		result.reset();
+		for (int p = 0; p < ScanResult.ELEMENTS; p++) {
+			result.colors[p] = ColorsEnum.values()[data.get()];
+			result.sampleCount[p] = data.get();
+			for (int k = 0; k < 3; k++) {result.estimate[ScanResult.estimateIndex(p) + k] = data.getFloat();}
+			for (int s = 0; s < result.sampleCount[p]; s++) {
+				for (int k = 0; k < 3; k++) {result.raw[ScanResult.rawIndex(p, s) + k] = data.getFloat();}
+			}
+		}
+		return integrity;
+	}
+}
@@ -0,0 +1,382 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Finds a short sequence of robot moves that turns one cube-representation into another one, e.g. to show a pattern,
+ * to restore a recorded scramble or to get back to a known state after a failed move.
+ * The search is bidirectional: breadth-first from the start with the moves and from the goal with the inverse moves, always one layer
+ * on the side with the smaller layer, until a state is reached from both sides. That visits about 2 * b^(d/2) states instead of b^d.
+ * All robot moves count as one move; of all shortest sequences found in the last layer the cheapest one (see MoveCost) is taken.
+ * Like a solved cube, the goal is reached in any orientation of the whole cube.
+ * Visited states are kept in two hash tables with open addressing and primitive keys (CubeState.cornerKey() and edgeKey()),
+ * so no object is created per state. With the default capacity states up to about 12 moves apart are found.
+ */
+public class GoalSolver {
+
+	/**
+	 * Default number of slots of each hash table.
+	 */
+	protected static final int CAPACITY = 1 << 17;
+
+	/**
+	 * Marks empty slots.
+	 */
+	private static final byte EMPTY = -1;
+
+	/**
+	 * Marks states the search started with, which weren't reached by a move.
+	 */
+	private static final byte ROOT = (byte) AllMoves.N.ordinal();
+
+	/**
+	 * All moves, indexed by ordinal.
+	 */
+	private static final AllMoves[] MOVES = AllMoves.values();
+
+	/**
+	 * Rotation (indexed by number of quarter turns 0...3) that changes orientation of the whole cube by that amount.
+	 */
+	private static final AllMoves[] ROTATIONS = {AllMoves.N, AllMoves.R, AllMoves.SR, AllMoves.RI};
+
+	/**
+	 * Inverse of each move (ordinal of AllMoves).
+	 */
+	private static final int[] INVERSE = new int[CubeState.MOVECOUNT];
+
+	static {
+		CubeState solved = new CubeState();
+		CubeState product = new CubeState();
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			for (int k = 0; k < CubeState.MOVECOUNT; k++) {
+				product.multiply(CubeState.MOVES[m], CubeState.MOVES[k]);
+				if (product.cornerKey() == solved.cornerKey() && product.edgeKey() == solved.edgeKey()) {INVERSE[m] = k;}
+			}
+		}
+	}
+
+	/**
+	 * States reached from one side, each with the move that connects it to the state it was reached from.
+	 * States are added layer by layer, so the states of the last layer are a range of the insertion order.
+	 */
+	private static class Table {
+
+		/**
+		 * Key of corners and rotations of the state in each slot.
+		 */
+		private final long[] corners;
+
+		/**
+		 * Key of edges of the state in each slot.
+		 */
+		private final long[] edges;
+
+		/**
+		 * Move (ordinal) of the state in each slot, ROOT for start states, EMPTY for empty slots.
+		 */
+		private final byte[] moves;
+
+		/**
+		 * Slots in the order states were added.
+		 */
+		private final int[] order;
+
+		/**
+		 * Number of slots - 1 (number of slots is a power of 2).
+		 */
+		private final int mask;
+
+		/**
+		 * Number of states.
+		 */
+		private int size = 0;
+
+		/**
+		 * First state (in order) of the last layer.
+		 */
+		private int layerStart = 0;
+
+		/**
+		 * First state (in order) after the last layer.
+		 */
+		private int layerEnd = 0;
+
+		/**
+		 * Number of moves of the states of the last layer.
+		 */
+		private int depth = 0;
+
+		/**
+		 * Constructor that creates an empty table.
+		 * @param capacity Number of slots (power of 2), at most 3/4 of them are used.
+		 */
+		Table(int capacity) {
+			corners = new long[capacity];
+			edges = new long[capacity];
+			moves = new byte[capacity];
+			order = new int[capacity / 4 * 3];
+			mask = capacity - 1;
+			for (int i = 0; i < capacity; i++) {moves[i] = EMPTY;}
+		}
+
+		/**
+		 * Removes all states.
+		 */
+		void clear() {
+			for (int i = 0; i < size; i++) {moves[order[i]] = EMPTY;}
+			size = 0;
+			layerStart = 0;
+			layerEnd = 0;
+			depth = 0;
+		}
+
+		/**
+		 * Returns slot of a state.
+		 * @param cornerKey Key of corners and rotations.
+		 * @param edgeKey Key of edges.
+		 * @return Slot, -1 if the state isn't in the table.
+		 */
+		int find(long cornerKey, long edgeKey) {
+			int slot = hash(cornerKey, edgeKey);
+			while (moves[slot] != EMPTY) {
+				if (corners[slot] == cornerKey && edges[slot] == edgeKey) return slot;
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds a state that isn't in the table yet.
+		 * @param cornerKey Key of corners and rotations.
+		 * @param edgeKey Key of edges.
+		 * @param move Move (ordinal) that connects the state to the state it was reached from, ROOT for start states.
+		 * @return False if the table is full (nothing is added then).
+		 */
+		boolean add(long cornerKey, long edgeKey, int move) {
+			if (size == order.length) return false;
+			int slot = hash(cornerKey, edgeKey);
+			while (moves[slot] != EMPTY) {slot = (slot + 1) & mask;}
+			corners[slot] = cornerKey;
+			edges[slot] = edgeKey;
+			moves[slot] = (byte) move;
+			order[size++] = slot;
+			return true;
+		}
+
+		/**
+		 * Makes all states added since the last call the last layer.
+		 */
+		void nextLayer() {
+			layerStart = layerEnd;
+			layerEnd = size;
+		}
+
+		/**
+		 * Returns first slot of a state.
+		 * @param cornerKey Key of corners and rotations.
+		 * @param edgeKey Key of edges.
+		 * @return Slot to start searching.
+		 */
+		private int hash(long cornerKey, long edgeKey) {
+			long h = cornerKey * 0x9E3779B97F4A7C15L ^ edgeKey;
+			h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+
+	/**
+	 * States reached from the start.
+	 */
+	private final Table forward;
+
+	/**
+	 * States reached from the goal.
+	 */
+	private final Table backward;
+
+	/**
+	 * Cheapest sequence found in the current layer, null if none.
+	 */
+	private AllMoves[] best;
+
+	/**
+	 * Estimated robot time of best in milliseconds.
+	 */
+	private int bestCost;
+
+	/**
+	 * Constructor that creates hash tables with the default capacity.
+	 */
+	protected GoalSolver() {
+		this(CAPACITY);
+	}
+
+	/**
+	 * Constructor that creates hash tables with given capacity.
+	 * @param capacity Number of slots of each hash table (power of 2), bigger tables find states further apart.
+	 */
+	protected GoalSolver(int capacity) {
+		forward = new Table(capacity);
+		backward = new Table(capacity);
+	}
+
+	/**
+	 * Returns a shortest sequence of moves that turns one cube-representation into another one (in any orientation of the whole cube).
+	 * @param from Start cube-representation.
+	 * @param to Goal cube-representation.
+	 * @param maxLength Maximum number of moves.
+	 * @return Sequence of moves, null if the cube-representations are invalid or no sequence was found within maxLength
+	 * moves and the capacity of the hash tables.
+	 */
+	protected AllMoves[] solve(RubiksCube from, RubiksCube to, int maxLength) {
+		CubeState start = new CubeState();
+		CubeState goal = new CubeState();
+		if (!start.fromCube(from) || !goal.fromCube(to) || !start.isValid() || !goal.isValid()) return null;
+		forward.clear();
+		backward.clear();
+		forward.add(start.cornerKey(), start.edgeKey(), ROOT);
+		for (int r = 0; r < 4; r++) {
+			if (backward.find(goal.cornerKey(), goal.edgeKey()) < 0) {backward.add(goal.cornerKey(), goal.edgeKey(), ROOT);}
+			goal.applyMove(AllMoves.R);
+		}
+		if (backward.find(start.cornerKey(), start.edgeKey()) >= 0) return new AllMoves[0];
+		forward.nextLayer();
+		backward.nextLayer();
+		best = null;
+		while (forward.depth + backward.depth < maxLength) {
+			boolean ahead = forward.layerEnd - forward.layerStart <= backward.layerEnd - backward.layerStart;
+			if (!expand(ahead)) return null;
+			if (best != null) return best;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the next layer to one side and remembers the cheapest sequence through the states reached from both sides.
+	 * @param ahead True to expand the states reached from the start, false for the states reached from the goal.
+	 * @return False if the hash table is full.
+	 */
+	private boolean expand(boolean ahead) {
+		Table side = ahead ? forward : backward;
+		Table other = ahead ? backward : forward;
+		CubeState state = new CubeState();
+		CubeState next = new CubeState();
+		for (int i = side.layerStart; i < side.layerEnd; i++) {
+			int slot = side.order[i];
+			state.fromKeys(side.corners[slot], side.edges[slot]);
+			int last = side.moves[slot];
+			for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+				if (last != ROOT && MOVES[m].getGroup() == MOVES[last].getGroup()) continue;
+				next.multiply(state, CubeState.MOVES[ahead ? m : INVERSE[m]]);
+				long cornerKey = next.cornerKey();
+				long edgeKey = next.edgeKey();
+				if (side.find(cornerKey, edgeKey) >= 0) continue;
+				if (!side.add(cornerKey, edgeKey, m)) return false;
+				if (other.find(cornerKey, edgeKey) >= 0) {meet(next);}
+			}
+		}
+		side.nextLayer();
+		side.depth++;
+		return true;
+	}
+
+	/**
+	 * Builds the sequence through a state reached from both sides and keeps it if it is the cheapest one so far.
+	 * @param meeting State in both hash tables.
+	 */
+	private void meet(CubeState meeting) {
+		AllMoves[] moves = new AllMoves[forward.depth + backward.depth + 1];
+		CubeState state = new CubeState();
+		CubeState next = new CubeState();
+		int length = 0;
+		state.copyFrom(meeting);
+		int slot = forward.find(state.cornerKey(), state.edgeKey());
+		for (int m = forward.moves[slot]; m != ROOT; m = forward.moves[slot]) {
+			moves[length++] = MOVES[m];
+			next.multiply(state, CubeState.MOVES[INVERSE[m]]);
+			state.copyFrom(next);
+			slot = forward.find(state.cornerKey(), state.edgeKey());
+		}
+		for (int i = 0; i < length / 2; i++) {
+			AllMoves buffer = moves[i];
+			moves[i] = moves[length - 1 - i];
+			moves[length - 1 - i] = buffer;
+		}
+		state.copyFrom(meeting);
+		slot = backward.find(state.cornerKey(), state.edgeKey());
+		for (int m = backward.moves[slot]; m != ROOT; m = backward.moves[slot]) {
+			moves[length++] = MOVES[m];
+			next.multiply(state, CubeState.MOVES[m]);
+			state.copyFrom(next);
+			slot = backward.find(state.cornerKey(), state.edgeKey());
+		}
+		AllMoves[] sequence = new AllMoves[length];
+		System.arraycopy(moves, 0, sequence, 0, length);
+		int cost = MoveCost.time(sequence, 0, length);
+		if (best == null || cost < bestCost) {
+			best = sequence;
+			bestCost = cost;
+		}
+	}
+
+	/**
+	 * Applies moves that turn a cube-representation into another one (moves are recorded if recording is on).
+	 * If the cube-representations are too far apart for the bidirectional search, the cube is solved by CubeAlgorithm,
+	 * turned into the orientation the goal is solved in and then the solution of the goal is undone, which is longer.
+	 * The result is checked on a copy before anything is applied.
+	 * @param cube Cube-representation to change.
+	 * @param goal Goal cube-representation (is only read).
+	 * @param maxLength Maximum number of moves of the bidirectional search.
+	 * @return False if the goal can't be reached (nothing is applied then).
+	 */
+	protected boolean apply(RubiksCube cube, RubiksCube goal, int maxLength) {
+		AllMoves[] moves = solve(cube, goal, maxLength);
+		if (moves == null) {
+			if (CubeValidator.check(cube) != null || CubeValidator.check(goal) != null) return false;
+			RubiksCube there = new RubiksCube();
+			there.copyFrom(cube);
+			there.solutionIndex = 0;
+			RubiksCube back = new RubiksCube();
+			back.copyFrom(goal);
+			back.solutionIndex = 0;
+			CubeAlgorithm algorithm = new CubeAlgorithm();
+			if (!algorithm.solve(there).isSolved() || !algorithm.solve(back).isSolved()) return false;
+			AllMoves[] buffer = new AllMoves[there.solutionIndex + 1 + back.solutionIndex];
+			int length = 0;
+			for (int i = 0; i < there.solutionIndex; i++) {
+				if (there.solution[i] != AllMoves.N) buffer[length++] = there.solution[i];
+			}
+			// a rotation lowers the rotations of the cube-representation by one
+			AllMoves rotation = ROTATIONS[(there.getRotations() - back.getRotations()) & 3];
+			if (rotation != AllMoves.N) buffer[length++] = rotation;
+			for (int i = back.solutionIndex - 1; i >= 0; i--) {
+				if (back.solution[i] != AllMoves.N) buffer[length++] = MOVES[INVERSE[back.solution[i].ordinal()]];
+			}
+			moves = new AllMoves[length];
+			System.arraycopy(buffer, 0, moves, 0, length);
+			RubiksCube result = new RubiksCube();
+			result.copyFrom(cube);
+			result.setRecording(false);
+			result.applyMoves(moves);
+			if (!same(result, goal)) return false;
+		}
+		cube.applyMoves(moves);
+		return true;
+	}
+
+	/**
+	 * Checks if two cube-representations have the same elements and orientation.
+	 * @param cube First cube-representation.
+	 * @param other Second cube-representation.
+	 * @return boolean variable
+	 */
+	private static boolean same(RubiksCube cube, RubiksCube other) {
+		if (cube.getRotations() != other.getRotations()) return false;
+		for (int f = 0; f < 6; f++) {
+			for (int i = 0; i < 8; i++) {
+				if (cube.elements[f][i] != other.elements[f][i]) return false;
+			}
+		}
+		return true;
+	}
+}
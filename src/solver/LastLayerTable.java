@@ -0,0 +1,459 @@
+package solver;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import enums.AllMoves;
+
+/**
+ * Lookup table that solves the last layer at once, after the first two layers are solved.
+ * The state of the last layer (permutation and orientation of the four down corners and edges, and orientation of the whole cube)
+ * has 24 * 27 * 24 * 8 * 4 = 497664 values, half of them reachable. For each of them the table holds the first macro of a
+ * shortest solution, where a macro is a maneuver that keeps the first two layers: single D-moves and whole cube rotations,
+ * the maneuvers of the iterative last layer stages with their inverses, and all F2L-preserving sequences of up to MAXMACRO moves.
+ * Lengths of macros are added up (Dijkstra), so the solution is the shortest one that can be composed of these macros.
+ * The table is generated offline (main) and loaded from the classpath resource "lltable.gz" or the file of the same name.
+ */
+public class LastLayerTable {
+
+	/**
+	 * Name of the resource and file that contains the table.
+	 */
+	protected static final String FILENAME = "lltable.gz";
+
+	/**
+	 * Magic number at the beginning of every table ("LLTB").
+	 */
+	private static final int MAGIC = 0x4C4C5442;
+
+	/**
+	 * Number of values (permutation * 27 + orientation) of the down corners.
+	 */
+	private static final int CORNERSTATES = 24 * 27;
+
+	/**
+	 * Number of values (permutation * 8 + orientation) of the down edges.
+	 */
+	private static final int EDGESTATES = 24 * 8;
+
+	/**
+	 * Number of entries of the table.
+	 */
+	protected static final int SIZE = CORNERSTATES * EDGESTATES * 4;
+
+	/**
+	 * Length of the longest generated macro.
+	 */
+	private static final int MAXMACRO = 13;
+
+	/**
+	 * Table entry of states that are solved.
+	 */
+	private static final short SOLVED = -1;
+
+	/**
+	 * Table entry of states that can't be solved (wrong parity).
+	 */
+	private static final short UNREACHABLE = -2;
+
+	/**
+	 * Shared instance, loaded by getInstance().
+	 */
+	private static LastLayerTable instance = null;
+
+	/**
+	 * True once getInstance() tried to load the table.
+	 */
+	private static boolean loaded = false;
+
+	/**
+	 * Moves of every macro.
+	 */
+	private final AllMoves[][] macros;
+
+	/**
+	 * First macro to apply for every state (index into macros), SOLVED or UNREACHABLE.
+	 */
+	private final short[] next;
+
+	/**
+	 * Constructor that uses existing macros and table.
+	 * @param macros Moves of every macro.
+	 * @param next First macro to apply for every state.
+	 */
+	private LastLayerTable(AllMoves[][] macros, short[] next) {
+		this.macros = macros;
+		this.next = next;
+	}
+
+	/**
+	 * Returns the shared table, loaded at first call from the classpath or from the current directory.
+	 * @return LastLayerTable object, null if there is no table.
+	 */
+	protected static synchronized LastLayerTable getInstance() {
+		if (!loaded) {
+			loaded = true;
+			try {
+				InputStream in = LastLayerTable.class.getResourceAsStream(FILENAME);
+				if (in == null && new File(FILENAME).exists()) {in = new FileInputStream(FILENAME);}
+				if (in != null) {instance = load(in);}
+			} catch (IOException e) {e.printStackTrace();}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns rank (0...23) of the permutation of four pieces at given positions.
+	 * @param perm Permutation of corners or edges.
+	 * @param offset First of the four positions (pieces there are offset...offset+3).
+	 * @return Lexicographic rank.
+	 */
+	private static int permRank(byte[] perm, int offset) {
+		int rank = 0;
+		for (int i = 0; i < 3; i++) {
+			int smaller = 0;
+			for (int j = i + 1; j < 4; j++) {
+				if (perm[offset + j] < perm[offset + i]) smaller++;
+			}
+			rank = rank * (4 - i) + smaller;
+		}
+		return rank;
+	}
+
+	/**
+	 * Writes permutation with given rank to four positions.
+	 * @param perm Permutation of corners or edges.
+	 * @param offset First of the four positions (pieces there are offset...offset+3).
+	 * @param rank Lexicographic rank (0...23).
+	 */
+	private static void permFromRank(byte[] perm, int offset, int rank) {
+		int[] digits = new int[4];
+		for (int i = 3; i >= 0; i--) {
+			digits[i] = rank % (4 - i);
+			rank /= (4 - i);
+		}
+		boolean[] used = new boolean[4];
+		for (int i = 0; i < 4; i++) {
+			int k = -1;
+			for (int d = digits[i]; d >= 0; d--) {
+				do {k++;} while (used[k]);
+			}
+			used[k] = true;
+			perm[offset + i] = (byte)(offset + k);
+		}
+	}
+
+	/**
+	 * Returns index of the last layer of a state. First two layers have to be solved.
+	 * @param state CubeState object.
+	 * @return Index into table.
+	 */
+	protected static int index(CubeState state) {
+		int corners = permRank(state.cp, 4) * 27 + (state.co[4] * 3 + state.co[5]) * 3 + state.co[6];
+		int edges = permRank(state.ep, 4) * 8 + (state.eo[4] * 2 + state.eo[5]) * 2 + state.eo[6];
+		return (corners * EDGESTATES + edges) * 4 + state.rotations;
+	}
+
+	/**
+	 * Sets down corners and down edges of a state from an index. All other pieces are set to the solved state.
+	 * Orientation of the whole cube is not changed.
+	 * @param state CubeState object.
+	 * @param corners Value of the down corners (permutation * 27 + orientation).
+	 * @param edges Value of the down edges (permutation * 8 + orientation).
+	 */
+	private static void setLastLayer(CubeState state, int corners, int edges) {
+		state.resetSolved();
+		permFromRank(state.cp, 4, corners / 27);
+		int twist = corners % 27;
+		state.co[4] = (byte)(twist / 9);
+		state.co[5] = (byte)(twist / 3 % 3);
+		state.co[6] = (byte)(twist % 3);
+		state.co[7] = (byte)((6 - state.co[4] - state.co[5] - state.co[6]) % 3);
+		permFromRank(state.ep, 4, edges / 8);
+		int flip = edges % 8;
+		state.eo[4] = (byte)(flip / 4);
+		state.eo[5] = (byte)(flip / 2 % 2);
+		state.eo[6] = (byte)(flip % 2);
+		state.eo[7] = (byte)((state.eo[4] + state.eo[5] + state.eo[6]) % 2);
+	}
+
+	/**
+	 * Checks if the first two layers of a state are solved (relative to the orientation of the whole cube).
+	 * @param state CubeState object.
+	 * @return boolean variable
+	 */
+	protected static boolean firstTwoLayersSolved(CubeState state) {
+		CubeState goal = new CubeState();
+		for (int r = 0; r < state.rotations; r++) {goal.applyMove(AllMoves.RI);}
+		for (int i = 0; i < 4; i++) {
+			if (state.cp[i] != goal.cp[i] || state.co[i] != 0) return false;
+			if (state.ep[i] != goal.ep[i] || state.eo[i] != goal.eo[i]) return false;
+			if (state.ep[8 + i] != goal.ep[8 + i] || state.eo[8 + i] != goal.eo[8 + i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Solves the last layer of given cube-representation. Moves are applied to the cube (and recorded).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return False if first two layers aren't solved or the last layer is unsolvable (nothing is applied then).
+	 */
+	protected boolean solve(RubiksCube cube) {
+		CubeState state = new CubeState();
+		if (!state.fromCube(cube) || !firstTwoLayersSolved(state)) return false;
+		int index = index(state);
+		if (next[index] == UNREACHABLE) return false;
+		while (next[index] != SOLVED) {
+			AllMoves[] macro = macros[next[index]];
+			cube.applyMoves(macro);
+			for (int i = 0; i < macro.length; i++) {state.applyMove(macro[i]);}
+			index = index(state);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the state after applying a sequence of moves to the solved state.
+	 * @param moves Sequence of moves.
+	 * @return CubeState object.
+	 */
+	private static CubeState effect(AllMoves[] moves) {
+		CubeState state = new CubeState();
+		for (int i = 0; i < moves.length; i++) {state.applyMove(moves[i]);}
+		return state;
+	}
+
+	/**
+	 * Returns inverse sequence of moves.
+	 * @param moves Sequence of moves.
+	 * @return Inverse sequence.
+	 */
+	private static AllMoves[] inverse(AllMoves[] moves) {
+		AllMoves[] inverse = new AllMoves[moves.length];
+		for (int i = 0; i < moves.length; i++) {
+			AllMoves move = moves[moves.length - 1 - i];
+			int variant = (move.getRotation() == 2) ? 2 : (move.getRotation() == 1) ? 1 : 0;
+			inverse[i] = AllMoves.values()[move.getGroup() * 3 + variant];
+		}
+		return inverse;
+	}
+
+	/**
+	 * Collects all sequences of up to MAXMACRO moves that start and end with an F-move and keep the first two layers.
+	 * Sequences starting or ending with D-moves or rotations are covered by combining with the single move macros.
+	 * Distance tables of CrossSolver and PairSolver are used to prune sequences that can't restore the first two layers in time.
+	 * Of sequences with the same effect only the first (shortest) is kept.
+	 * @param effects Macros found so far, keyed by index of their effect on the solved state. Found macros are added.
+	 */
+	private static void findMacros(Map<Integer, AllMoves[]> effects) {
+		CrossSolver crossSolver = CrossSolver.getInstance();
+		CubeState solved = new CubeState();
+		int[] pairs = new int[4];
+		for (int pair = 0; pair < 4; pair++) {pairs[pair] = PairSolver.index(solved, pair);}
+		int[] path = new int[MAXMACRO];
+		for (int length = 1; length <= MAXMACRO; length++) {
+			findMacros(effects, crossSolver, CrossSolver.index(solved), pairs, path, 0, length, -1);
+		}
+	}
+
+	/**
+	 * Depth first search of findMacros().
+	 * @param effects Macros found so far.
+	 * @param crossSolver CrossSolver object.
+	 * @param cross Index of cross edges.
+	 * @param pairs Indices of pairs.
+	 * @param path Moves so far.
+	 * @param depth Number of moves so far.
+	 * @param length Length of searched sequences.
+	 * @param lastGroup Group of the last move.
+	 */
+	private static void findMacros(Map<Integer, AllMoves[]> effects, CrossSolver crossSolver, int cross, int[] pairs,
+			int[] path, int depth, int length, int lastGroup) {
+		int h = crossSolver.getDistance(cross);
+		for (int pair = 0; pair < 4; pair++) {h = Math.max(h, PairSolver.getDistance(pair, pairs[pair]));}
+		if (depth == length) {
+			if (h != 0 || lastGroup != 0) return;
+			AllMoves[] macro = new AllMoves[length];
+			for (int i = 0; i < length; i++) {macro[i] = AllMoves.values()[path[i]];}
+			Integer key = index(effect(macro));
+			if (!effects.containsKey(key)) {effects.put(key, macro);}
+			return;
+		}
+		if (depth + h > length) return;
+		int[] nextPairs = new int[4];
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			int group = AllMoves.values()[m].getGroup();
+			if (group == lastGroup || (depth == 0 && group != 0)) continue;
+			for (int pair = 0; pair < 4; pair++) {nextPairs[pair] = PairSolver.move(pairs[pair], m);}
+			path[depth] = m;
+			findMacros(effects, crossSolver, CrossSolver.move(cross, m), nextPairs, path, depth + 1, length, group);
+		}
+	}
+
+	/**
+	 * Generates macros and table. Down corners and down edges are transformed separately by precomputed tables,
+	 * then Dijkstra's algorithm runs backwards from the solved states (with a bucket queue, since macro lengths are small).
+	 * @return LastLayerTable object.
+	 */
+	protected static LastLayerTable generate() {
+		Map<Integer, AllMoves[]> effects = new HashMap<>();
+		AllMoves[][] basic = {{AllMoves.D}, {AllMoves.DI}, {AllMoves.SD}, {AllMoves.R}, {AllMoves.RI}, {AllMoves.SR}};
+		for (AllMoves[] macro : basic) {effects.put(index(effect(macro)), macro);}
+		for (AllMoves[] maneuver : CubeAlgorithm.LLMANEUVERS) {
+			for (AllMoves[] macro : new AllMoves[][] {maneuver, inverse(maneuver)}) {
+				Integer key = index(effect(macro));
+				if (!effects.containsKey(key) || effects.get(key).length > macro.length) {effects.put(key, macro);}
+			}
+		}
+		findMacros(effects);
+		effects.remove(index(new CubeState()));
+		List<AllMoves[]> list = new ArrayList<>(effects.values());
+		AllMoves[][] macros = list.toArray(new AllMoves[list.size()][]);
+		Map<Integer, Integer> numbers = new HashMap<>();
+		for (int k = 0; k < macros.length; k++) {numbers.put(index(effect(macros[k])), k);}
+
+		int count = macros.length;
+		int[][] cornerMove = new int[count][CORNERSTATES];
+		int[][] edgeMove = new int[count][EDGESTATES];
+		int[] rotation = new int[count];
+		int[] inverse = new int[count];
+		CubeState state = new CubeState();
+		CubeState result = new CubeState();
+		for (int k = 0; k < count; k++) {
+			CubeState macro = effect(macros[k]);
+			rotation[k] = macro.rotations;
+			for (int c = 0; c < CORNERSTATES; c++) {
+				setLastLayer(state, c, 0);
+				result.multiply(state, macro);
+				result.rotations = 0;
+				cornerMove[k][c] = index(result) / (EDGESTATES * 4);
+			}
+			for (int e = 0; e < EDGESTATES; e++) {
+				setLastLayer(state, 0, e);
+				result.multiply(state, macro);
+				result.rotations = 0;
+				edgeMove[k][e] = index(result) / 4 % EDGESTATES;
+			}
+		}
+		for (int k = 0; k < count; k++) {
+			Integer j = numbers.get(index(effect(inverse(macros[k]))));
+			inverse[k] = (j == null) ? -1 : j;
+		}
+
+		short[] next = new short[SIZE];
+		int[] distance = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			next[i] = UNREACHABLE;
+			distance[i] = Integer.MAX_VALUE;
+		}
+		int maxLength = 0;
+		for (AllMoves[] macro : macros) {maxLength = Math.max(maxLength, macro.length);}
+		List<List<Integer>> buckets = new ArrayList<>();
+		CubeState goal = new CubeState();
+		for (int r = 0; r < 4; r++) {
+			int index = index(goal);
+			next[index] = SOLVED;
+			distance[index] = 0;
+			goal.applyMove(AllMoves.R);
+		}
+		buckets.add(new ArrayList<Integer>());
+		for (int i = 0; i < SIZE; i++) {
+			if (distance[i] == 0) buckets.get(0).add(i);
+		}
+		for (int d = 0; d < buckets.size(); d++) {
+			for (int index : buckets.get(d)) {
+				if (distance[index] != d) continue;
+				int r = index & 3;
+				int edges = (index >> 2) % EDGESTATES;
+				int corners = (index >> 2) / EDGESTATES;
+				for (int k = 0; k < count; k++) {
+					int j = inverse[k];
+					if (j < 0) continue;
+					int before = (cornerMove[j][corners] * EDGESTATES + edgeMove[j][edges]) * 4 + ((r + rotation[j]) & 3);
+					int candidate = d + macros[k].length;
+					if (candidate < distance[before]) {
+						distance[before] = candidate;
+						next[before] = (short) k;
+						while (buckets.size() <= candidate) {buckets.add(new ArrayList<Integer>());}
+						buckets.get(candidate).add(before);
+					}
+				}
+			}
+			buckets.set(d, null);
+		}
+		return new LastLayerTable(macros, next);
+	}
+
+	/**
+	 * Saves macros and table in compressed form.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	protected void save(String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(fileName)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(SIZE);
+			out.writeInt(macros.length);
+			for (AllMoves[] macro : macros) {
+				out.writeByte(macro.length);
+				for (AllMoves move : macro) {out.writeByte(move.ordinal());}
+			}
+			for (int i = 0; i < SIZE; i++) {out.writeShort(next[i]);}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads macros and table.
+	 * @param stream Compressed stream of the table (is closed by this method).
+	 * @return LastLayerTable object.
+	 * @throws IOException if stream can't be read or contains no last layer table.
+	 */
+	protected static LastLayerTable load(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(new GZIPInputStream(stream));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != SIZE) throw new IOException("no last layer table");
+			AllMoves[][] macros = new AllMoves[in.readInt()][];
+			for (int k = 0; k < macros.length; k++) {
+				macros[k] = new AllMoves[in.readUnsignedByte()];
+				for (int i = 0; i < macros[k].length; i++) {macros[k][i] = AllMoves.values()[in.readUnsignedByte()];}
+			}
+			short[] next = new short[SIZE];
+			for (int i = 0; i < SIZE; i++) {next[i] = in.readShort();}
+			return new LastLayerTable(macros, next);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Generates table and saves it (offline, on a desktop computer).
+	 * @param args Optional name of the file, default is lltable.gz in the current directory.
+	 */
+	public static void main(String[] args) {
+		long start = System.currentTimeMillis();
+		LastLayerTable table = generate();
+		int reachable = 0;
+		for (int i = 0; i < SIZE; i++) {
+			if (table.next[i] != UNREACHABLE) reachable++;
+		}
+		System.out.println(table.macros.length + " macros, " + reachable + " of " + SIZE + " states reachable, "
+				+ (System.currentTimeMillis() - start) + " ms");
+		try {
+			table.save((args.length > 0) ? args[0] : FILENAME);
+		} catch (IOException e) {e.printStackTrace();}
+	}
+}
@@ -56,11 +56,6 @@ class MotorController {
 	 */
 	private final int MOVERSPEED = 800;
 	
-	/**
-	 * Additional angle to prevent mechanical movement failure. Not used at the moment.
-	 */
-	private final static int OVERSHOOT = 2;
-	
 	/**
 	 * Angle from fork's idle position to finish clockwise rotation of cube's front face.
 	 * This value is read from forkcalibration-file upon startup.
@@ -573,24 +568,6 @@ class MotorController {
 		}
 		return 0;
 	}*/
-	public static int overshoot(AllMoves[] maneuver, int thisMove, int manIndex) {
-		try {
-			if ((thisMove < manIndex -1) && (maneuver[thisMove].getGroup() != 2)){
-				int i;
-				if (maneuver[thisMove +1].getGroup() != 2) {i = 1;}
-				else if (maneuver[thisMove +1] != AllMoves.SR) {i = 2;}
-				else {
-					if ((maneuver[thisMove].getGroup() == 0) && (maneuver[thisMove +2].getGroup() == 0)) {
-						if (maneuver[thisMove + 3].getGroup() == 2) {i = 4;} // shiat
-						else {i = 3;}
-					}
-					else {i = 2;}
-				}
-				return ((maneuver[thisMove].getRotation() * maneuver[thisMove +i].getRotation()) > 0) ? OVERSHOOT : -OVERSHOOT; 
-			}
-			return 0;
-		} catch (ArrayIndexOutOfBoundsException e) {return 0;}
-	}
 
 
 	/**
@@ -605,7 +582,7 @@ class MotorController {
 		int overshoot;
 		for (int i = 0; i < manIndex; i++) {
 			nextRotate = (i == (manIndex -1)) ? false : (maneuver[i+1].getGroup() == 2);
-			if (!scanning) {overshoot = this.overshoot(maneuver, i, manIndex);}
+			if (!scanning) {overshoot = Overshoot.angle(maneuver, i, manIndex);}
 			else {overshoot = 0;}
 			switch (maneuver[i]) {
 			case F: front(overshoot); break;
@@ -0,0 +1,114 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Estimated time the robot needs to apply moves, derived from the delays and motor movements in MotorController.
+ * Solutions with the same number of moves can take very different times on the robot: front turns need the fork twice,
+ * down turns need the fork and the table, whole cube rotations only the table.
+ * Values are estimates in milliseconds and only used to compare solutions with each other.
+ * The time of a down turn depends on the move after it, so the robot is modelled as a state machine: after front turns and rotations
+ * the robot is READY (fork open, table at its exact angle). A down turn leaves the robot in a holding state: the fork still holds
+ * the upper layers and the table stands at the corrected angle of the turn. The next move decides how the down turn ends:
+ * a rotation only pulls the fork back and turns the table from where it is, every other move needs the table turned back first.
+ */
+public class MoveCost {
+
+	/**
+	 * State of the robot between moves: fork open, table at its exact angle.
+	 */
+	protected static final int READY = 0;
+
+	/**
+	 * Down turn that is still holding in each state (indexed by state, null for READY).
+	 */
+	private static final AllMoves[] HOLDING = {null, AllMoves.D, AllMoves.DI, AllMoves.SD};
+
+	/**
+	 * Estimated time of each move in milliseconds (indexed by ordinal of AllMoves).
+	 */
+	private static final int[] TIME = {750, 750, 1400, 850, 850, 1050, 300, 300, 500, 0};
+
+	/**
+	 * Time saved by a move if the next move is a whole cube rotation (indexed by ordinal of AllMoves).
+	 * Down turns don't turn the table back to its exact angle then and pull the fork back earlier.
+	 */
+	private static final int[] NEXTROTATEDISCOUNT = {0, 0, 0, 250, 400, 250, 0, 0, 0, 0};
+
+	/**
+	 * Lower bound of the time of every move except AllMoves.N, in any state of the robot.
+	 */
+	protected static final int MINTIME = 300;
+
+	/**
+	 * Returns estimated time of a single move.
+	 * @param move Move to apply.
+	 * @param nextRotate True if the next move is a whole cube rotation.
+	 * @return Time in milliseconds.
+	 */
+	protected static int time(AllMoves move, boolean nextRotate) {
+		return nextRotate ? TIME[move.ordinal()] - NEXTROTATEDISCOUNT[move.ordinal()] : TIME[move.ordinal()];
+	}
+
+	/**
+	 * Returns state of the robot after a move.
+	 * @param move Move that was applied.
+	 * @return READY or the holding state of the down turn.
+	 */
+	protected static int next(AllMoves move) {
+		for (int state = 1; state < HOLDING.length; state++) {
+			if (HOLDING[state] == move) return state;
+		}
+		return READY;
+	}
+
+	/**
+	 * Returns estimated time to end the down turn of a state.
+	 * @param state State of the robot.
+	 * @param nextRotate True if the next move is a whole cube rotation.
+	 * @return Time in milliseconds, 0 if the robot is READY or a rotation follows.
+	 */
+	protected static int end(int state, boolean nextRotate) {
+		return (state == READY || nextRotate) ? 0 : NEXTROTATEDISCOUNT[HOLDING[state].ordinal()];
+	}
+
+	/**
+	 * Returns estimated time of a move in a state of the robot, including the end of the down turn before it.
+	 * The end of the move itself is added by the next move (see end()).
+	 * @param state State of the robot before the move.
+	 * @param move Move to apply.
+	 * @return Time in milliseconds.
+	 */
+	protected static int time(int state, AllMoves move) {
+		return end(state, move.getGroup() == 2) + TIME[move.ordinal()] - NEXTROTATEDISCOUNT[move.ordinal()];
+	}
+
+	/**
+	 * Returns estimated time of a part of a maneuver that is applied in a state of the robot, including the end of its last move.
+	 * @param state State of the robot before the first move.
+	 * @param moves Array that contains moves.
+	 * @param from First move to apply.
+	 * @param to First move after the applied part.
+	 * @param nextRotate True if the move after the part is a whole cube rotation.
+	 * @return Time in milliseconds.
+	 */
+	protected static int time(int state, AllMoves[] moves, int from, int to, boolean nextRotate) {
+		int time = 0;
+		for (int i = from; i < to; i++) {
+			time += time(state, moves[i]);
+			state = next(moves[i]);
+		}
+		return time + end(state, nextRotate);
+	}
+
+	/**
+	 * Returns estimated time the robot needs to apply a part of a maneuver, same as MotorController.applyMoves() would execute it.
+	 * @param moves Array that contains moves.
+	 * @param from First move to apply.
+	 * @param to First move after the applied part.
+	 * @return Time in milliseconds.
+	 */
+	protected static int time(AllMoves[] moves, int from, int to) {
+		return time(READY, moves, from, to, false);
+	}
+}
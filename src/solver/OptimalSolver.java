@@ -0,0 +1,319 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import enums.AllMoves;
+
+/**
+ * Finds solutions with the fewest robot moves (all nine moves count as one move) by iterative deepening A* on all processor cores.
+ * Lower bounds are the corner pattern database (CornerTable) and the distance table of the cross (CrossSolver).
+ * The top levels of the search tree are split into fork-join tasks, one per move, down to SPLITDEPTH; deeper subtrees are searched
+ * sequentially by the task that reaches them, idle threads steal waiting tasks. The current bound is shared by all tasks through an atomic,
+ * so is the smallest cost above the bound (the bound of the next iteration) and the solution: as soon as one task finds a solution
+ * within the bound, all tasks stop. Because the bound grows by one move at a time, the first solution is a shortest one.
+ * Meant for offline precomputation and evaluation on a desktop computer (see CornerTable), not for the EV3.
+ * Usage: OptimalSolver [-scrambles n] [-length n] [-seed n] [-threads n] solves scrambles of n random moves (no two in a row of the same group).
+ */
+public class OptimalSolver {
+
+	/**
+	 * Depth down to which the search tree is split into tasks (9 * 6 * 6 = 324 tasks at this depth).
+	 */
+	private static final int SPLITDEPTH = 3;
+
+	/**
+	 * Longest solution that is searched for.
+	 */
+	protected static final int MAXLENGTH = 30;
+
+	/**
+	 * All moves, indexed by ordinal.
+	 */
+	private static final AllMoves[] MOVES = AllMoves.values();
+
+	/**
+	 * Keys (CubeState.cornerKey() and edgeKey()) of the solved cube in all four orientations of the whole cube.
+	 */
+	private static final long[][] GOALKEYS = new long[4][2];
+
+	static {
+		CubeState goal = new CubeState();
+		for (int r = 0; r < 4; r++) {
+			GOALKEYS[r][0] = goal.cornerKey();
+			GOALKEYS[r][1] = goal.edgeKey();
+			goal.applyMove(AllMoves.R);
+		}
+	}
+
+	/**
+	 * Searches the subtree below a path: splits it into one task per move above SPLITDEPTH, searches it sequentially below.
+	 */
+	private class Subtree extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Moves (ordinals) from the start to the root of the subtree.
+		 */
+		private final int[] path;
+
+		/**
+		 * Index of the corners (see CornerTable.index()) at the root of the subtree.
+		 */
+		private final int corners;
+
+		/**
+		 * Index of the cross edges (see CrossSolver.index()) at the root of the subtree.
+		 */
+		private final int cross;
+
+		/**
+		 * Constructor that sets root of subtree.
+		 * @param path Moves from the start to the root.
+		 * @param corners Index of the corners at the root.
+		 * @param cross Index of the cross edges at the root.
+		 */
+		Subtree(int[] path, int corners, int cross) {
+			this.path = path;
+			this.corners = corners;
+			this.cross = cross;
+		}
+
+		@Override
+		protected void compute() {
+			if (path.length < SPLITDEPTH) {
+				nodes.incrementAndGet();
+				if (solution.get() != null || prune(corners, cross, path.length)) return;
+				if (cornerTable.getDistance(corners) == 0 && crossSolver.getDistance(cross) == 0 && isSolution(path, path.length)) return;
+				List<Subtree> children = new ArrayList<>();
+				for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+					if (path.length > 0 && MOVES[m].getGroup() == MOVES[path[path.length - 1]].getGroup()) continue;
+					int[] next = new int[path.length + 1];
+					System.arraycopy(path, 0, next, 0, path.length);
+					next[path.length] = m;
+					children.add(new Subtree(next, CornerTable.move(corners, m), CrossSolver.move(cross, m)));
+				}
+				invokeAll(children);
+			} else {
+				int[] moves = new int[MAXLENGTH];
+				System.arraycopy(path, 0, moves, 0, path.length);
+				long[] count = new long[1];
+				search(moves, path.length, corners, cross, count);
+				nodes.addAndGet(count[0]);
+			}
+		}
+	}
+
+	/**
+	 * Threads of the search.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Pattern database of the corners.
+	 */
+	private final CornerTable cornerTable;
+
+	/**
+	 * Distance table of the cross.
+	 */
+	private final CrossSolver crossSolver;
+
+	/**
+	 * State the current search starts with.
+	 */
+	private final CubeState start = new CubeState();
+
+	/**
+	 * Largest number of moves of the current iteration.
+	 */
+	private final AtomicInteger bound = new AtomicInteger();
+
+	/**
+	 * Smallest estimated number of moves above the bound, found in the current iteration.
+	 */
+	private final AtomicInteger nextBound = new AtomicInteger();
+
+	/**
+	 * Solution of the current search, null until one is found.
+	 */
+	private final AtomicReference<AllMoves[]> solution = new AtomicReference<>();
+
+	/**
+	 * Number of nodes visited by the current search.
+	 */
+	private final AtomicLong nodes = new AtomicLong();
+
+	/**
+	 * Constructor that creates the threads and loads the tables.
+	 * @param threads Number of threads.
+	 */
+	protected OptimalSolver(int threads) {
+		pool = new ForkJoinPool(threads);
+		cornerTable = CornerTable.getInstance();
+		crossSolver = CrossSolver.getInstance();
+	}
+
+	/**
+	 * Returns true if a node can't lead to a solution within the bound. Then the estimated number of moves is offered as next bound.
+	 * @param corners Index of corners.
+	 * @param cross Index of cross edges.
+	 * @param depth Number of moves from the start.
+	 * @return True if the node is cut off.
+	 */
+	private boolean prune(int corners, int cross, int depth) {
+		int estimate = depth + Math.max(cornerTable.getDistance(corners), crossSolver.getDistance(cross));
+		if (estimate <= bound.get()) return false;
+		int next = nextBound.get();
+		while (estimate < next && !nextBound.compareAndSet(next, estimate)) {next = nextBound.get();}
+		return true;
+	}
+
+	/**
+	 * Searches a subtree depth first within the bound.
+	 * @param moves Moves (ordinals) from the start, filled up to depth.
+	 * @param depth Number of moves from the start.
+	 * @param corners Index of corners.
+	 * @param cross Index of cross edges.
+	 * @param count Counter of visited nodes.
+	 * @return True if a solution was found (by this or another task).
+	 */
+	private boolean search(int[] moves, int depth, int corners, int cross, long[] count) {
+		count[0]++;
+		if (solution.get() != null) return true;
+		if (prune(corners, cross, depth)) return false;
+		if (cornerTable.getDistance(corners) == 0 && crossSolver.getDistance(cross) == 0 && isSolution(moves, depth)) return true;
+		if (depth == moves.length) return false;
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			if (depth > 0 && MOVES[m].getGroup() == MOVES[moves[depth - 1]].getGroup()) continue;
+			moves[depth] = m;
+			if (search(moves, depth + 1, CornerTable.move(corners, m), CrossSolver.move(cross, m), count)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if moves solve the whole cube (the tables only cover corners and cross) and publishes them as solution.
+	 * @param moves Moves (ordinals) from the start.
+	 * @param length Number of moves.
+	 * @return True if the moves solve the cube.
+	 */
+	private boolean isSolution(int[] moves, int length) {
+		CubeState state = new CubeState();
+		CubeState next = new CubeState();
+		state.copyFrom(start);
+		for (int i = 0; i < length; i++) {
+			next.multiply(state, CubeState.MOVES[moves[i]]);
+			state.copyFrom(next);
+		}
+		for (long[] keys : GOALKEYS) {
+			if (state.cornerKey() == keys[0] && state.edgeKey() == keys[1]) {
+				AllMoves[] found = new AllMoves[length];
+				for (int i = 0; i < length; i++) {found[i] = MOVES[moves[i]];}
+				solution.compareAndSet(null, found);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a shortest solution of a state.
+	 * @param state State to solve (is only read).
+	 * @param maxLength Largest number of moves searched for (at most MAXLENGTH).
+	 * @return Moves of the solution, null if the state is invalid or needs more than maxLength moves.
+	 */
+	protected AllMoves[] search(CubeState state, int maxLength) {
+		if (!state.isValid()) return null;
+		start.copyFrom(state);
+		solution.set(null);
+		nodes.set(0);
+		int corners = CornerTable.index(state);
+		int cross = CrossSolver.index(state);
+		bound.set(Math.max(cornerTable.getDistance(corners), crossSolver.getDistance(cross)));
+		while (bound.get() <= Math.min(maxLength, MAXLENGTH)) {
+			nextBound.set(Integer.MAX_VALUE);
+			pool.invoke(new Subtree(new int[0], corners, cross));
+			if (solution.get() != null) return solution.get();
+			bound.set(nextBound.get());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns number of nodes visited by the last search.
+	 * @return Number of nodes.
+	 */
+	protected long getNodes() {
+		return nodes.get();
+	}
+
+	/**
+	 * Solves a cube-representation with the fewest moves, moves are applied to the cube (and recorded) like by CubeAlgorithm.solve().
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @param maxLength Largest number of moves searched for.
+	 * @return Result with the whole solution in stage 0, not solved if there is no solution within maxLength moves.
+	 */
+	protected SolveResult solve(RubiksCube cube, int maxLength) {
+		long begin = System.nanoTime();
+		CubeState state = new CubeState();
+		AllMoves[] moves = state.fromCube(cube) ? search(state, maxLength) : null;
+		int[] stageLengths = new int[CubeAlgorithm.STAGES.length];
+		if (moves == null) return new SolveResult(false, stageLengths, cube.solutionIndex, System.nanoTime() - begin, 0);
+		int first = cube.solutionIndex;
+		cube.setRecording(true);
+		cube.applyMoves(moves);
+		cube.shortenSolution();
+		cube.setRecording(false);
+		stageLengths[0] = cube.solutionIndex - first;
+		return new SolveResult(cube.isSolved(), stageLengths, cube.solutionIndex, System.nanoTime() - begin,
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
+	}
+
+	/**
+	 * Solves scrambles of random moves and prints length, visited nodes and time of every solution.
+	 * @param args Optional "-scrambles n", "-length n" (moves per scramble), "-seed n" and "-threads n".
+	 */
+	public static void main(String[] args) {
+		int scrambles = 10;
+		int length = 12;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals("-scrambles")) scrambles = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-length")) length = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+		}
+		OptimalSolver solver = new OptimalSolver(threads);
+		SplitMixRandom random = new SplitMixRandom(seed);
+		long totalNodes = 0;
+		long totalTime = 0;
+		for (int k = 0; k < scrambles; k++) {
+			CubeState state = new CubeState();
+			int last = -1;
+			for (int i = 0; i < length; i++) {
+				AllMoves move = MOVES[random.nextInt(CubeState.MOVECOUNT)];
+				while (move.getGroup() == last) {move = MOVES[random.nextInt(CubeState.MOVECOUNT)];}
+				state.applyMove(move);
+				last = move.getGroup();
+			}
+			long begin = System.nanoTime();
+			AllMoves[] moves = solver.search(state, MAXLENGTH);
+			long time = System.nanoTime() - begin;
+			totalNodes += solver.getNodes();
+			totalTime += time;
+			System.out.println(String.format("%3d: %2s moves, %12d nodes, %9.1f ms", k, (moves == null) ? "-" : "" + moves.length,
+					solver.getNodes(), time / 1e6));
+		}
+		System.out.println(String.format("%d scrambles on %d threads in %.2f s, %.0f nodes/s", scrambles, threads,
+				totalTime / 1e9, totalNodes / (totalTime / 1e9)));
+		solver.pool.shutdown();
+	}
+}
@@ -0,0 +1,216 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import enums.AllMoves;
+
+/**
+ * Solves a cube-representation from all starting orientations the robot can reach and keeps the solution
+ * with the lowest estimated robot time (see MoveCost).
+ * The robot can't turn the cube upside down, so the yellow cross is always solved first. Variants differ in the number of
+ * whole cube rotations applied before CubeAlgorithm starts (0...3) and in solving the reflected cube (see RobotSymmetry),
+ * which gives 8 variants. Every variant works on its own copy of the cube with its own CubeAlgorithm, so they can run in parallel.
+ * Every solution is checked on another copy of the original cube before it is accepted.
+ */
+public class OrientationSolver {
+
+	/**
+	 * Number of variants: 4 starting rotations, each for the cube and its reflection.
+	 */
+	protected static final int VARIANTS = 8;
+
+	/**
+	 * Algorithm of each variant.
+	 */
+	private final CubeAlgorithm[] algorithms = new CubeAlgorithm[VARIANTS];
+
+	/**
+	 * Cube-representation each variant is solved on.
+	 */
+	private final RubiksCube[] cubes = new RubiksCube[VARIANTS];
+
+	/**
+	 * Result of each variant after solve().
+	 */
+	private final SolveResult[] results = new SolveResult[VARIANTS];
+
+	/**
+	 * Cube-representation solutions are checked on.
+	 */
+	private final RubiksCube check = new RubiksCube();
+
+	/**
+	 * Threads the variants are solved on, null if they are solved one after another.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Receives warnings of the solver, null if nobody listens.
+	 */
+	private SolverListener listener = null;
+
+	/**
+	 * Constructor that creates a solver using given number of threads.
+	 * @param threads Number of threads, 1 solves all variants in the calling thread.
+	 */
+	protected OrientationSolver(int threads) {
+		for (int v = 0; v < VARIANTS; v++) {
+			algorithms[v] = new CubeAlgorithm();
+			cubes[v] = new RubiksCube();
+		}
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(Math.min(threads, VARIANTS), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "OrientationSolver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		else executor = null;
+	}
+
+	/**
+	 * Setter-method for the listener that receives warnings of the solver.
+	 * @param listener SolverListener object, null to remove listener.
+	 */
+	protected void setListener(SolverListener listener) {this.listener = listener;}
+
+	/**
+	 * Returns true if the solution of a variant is applied to the reflected cube.
+	 * @param variant Number of variant.
+	 * @return boolean variable
+	 */
+	private static boolean mirrored(int variant) {
+		return variant >= VARIANTS / 2;
+	}
+
+	/**
+	 * Solves one variant on its own cube-representation.
+	 * @param variant Number of variant.
+	 * @param cube Original cube-representation (is only read).
+	 */
+	private void solveVariant(int variant, RubiksCube cube) {
+		RubiksCube copy = cubes[variant];
+		if (mirrored(variant)) {RobotSymmetry.mirror(cube, copy);}
+		else {
+			copy.copyFrom(cube);
+			copy.solutionIndex = 0;
+		}
+		copy.setRecording(true);
+		for (int r = 0; r < variant % 4; r++) {copy.rotate();}
+		results[variant] = algorithms[variant].solve(copy);
+	}
+
+	/**
+	 * Returns true if the solution of a variant solves the original cube-representation.
+	 * @param variant Number of variant.
+	 * @param cube Original cube-representation.
+	 * @return boolean variable
+	 */
+	private boolean verify(int variant, RubiksCube cube) {
+		if (!results[variant].isSolved()) return false;
+		check.copyFrom(cube);
+		check.setRecording(false);
+		check.applyMoves(solution(variant));
+		return check.isSolved();
+	}
+
+	/**
+	 * Returns solution of a variant as moves for the original cube-representation.
+	 * @param variant Number of variant.
+	 * @return Array of moves.
+	 */
+	private AllMoves[] solution(int variant) {
+		RubiksCube copy = cubes[variant];
+		AllMoves[] moves = new AllMoves[copy.solutionIndex];
+		for (int i = 0; i < moves.length; i++) {
+			moves[i] = mirrored(variant) ? RobotSymmetry.mirror(copy.solution[i]) : copy.solution[i];
+		}
+		return moves;
+	}
+
+	/**
+	 * Solves all variants, in parallel if threads are available.
+	 * If the calling thread is interrupted, the remaining variants are not solved.
+	 * @param cube Original cube-representation.
+	 */
+	private void solveAll(final RubiksCube cube) {
+		if (executor == null) {
+			for (int v = 0; v < VARIANTS; v++) {
+				if (Thread.currentThread().isInterrupted()) {results[v] = new SolveResult(false, new int[CubeAlgorithm.STAGES.length], 0, 0, 0);}
+				else {solveVariant(v, cube);}
+			}
+			return;
+		}
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int v = 0; v < VARIANTS; v++) {
+			final int variant = v;
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					solveVariant(variant, cube);
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> future : futures) {future.get();}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Solves given cube-representation from all variants and applies the fastest verified solution to it (the solution is recorded
+	 * in the solution array of the cube like by CubeAlgorithm.solve()).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Result of the chosen variant; not solved if no variant could solve the cube (cube is left unchanged then).
+	 */
+	protected SolveResult solve(RubiksCube cube) {
+		long start = System.nanoTime();
+		String problem = CubeValidator.check(cube);
+		if (problem != null) {
+			if (listener != null) {listener.warning(problem);}
+			return new SolveResult(false, new int[CubeAlgorithm.STAGES.length], cube.solutionIndex, System.nanoTime() - start, 0);
+		}
+		solveAll(cube);
+		int best = -1;
+		for (int v = 0; v < VARIANTS; v++) {
+			if (!verify(v, cube)) continue;
+			if (best < 0 || results[v].getApplyTime() < results[best].getApplyTime()
+					|| (results[v].getApplyTime() == results[best].getApplyTime() && results[v].getLength() < results[best].getLength())) {
+				best = v;
+			}
+		}
+		if (best < 0) {
+			if (listener != null) {listener.warning("No solution");}
+			return new SolveResult(false, new int[CubeAlgorithm.STAGES.length], 0, System.nanoTime() - start, 0);
+		}
+		AllMoves[] moves = solution(best);
+		int[] stageLengths = new int[CubeAlgorithm.STAGES.length];
+		stageLengths[0] = moves.length + results[best].getSaved();
+		for (int stage = 1; stage < stageLengths.length; stage++) {
+			stageLengths[stage] = results[best].getStageLength(stage);
+			stageLengths[0] -= stageLengths[stage];
+		}
+		int first = cube.solutionIndex;
+		cube.setRecording(true);
+		cube.applyMoves(moves);
+		cube.shortenSolution();
+		cube.setRecording(false);
+		return new SolveResult(cube.isSolved(), stageLengths, results[best].getSaved(), cube.solutionIndex, System.nanoTime() - start,
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
+	}
+}
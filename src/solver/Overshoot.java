@@ -0,0 +1,42 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Additional turn angle of a move that prevents mechanical failures, depending on the direction of the next turn.
+ * Used by MotorController and written to the solution file by RubiksCube. It doesn't depend on the EV3 classes,
+ * so the cube model can be used without them.
+ */
+public class Overshoot {
+
+	/**
+	 * Additional angle to prevent mechanical movement failure. Not used at the moment.
+	 */
+	private static final int OVERSHOOT = 2;
+
+	/**
+	 * Calculates additional angle of a move to prevent mechanical failure. Not used at the moment.
+	 * @param maneuver Array that contains moves.
+	 * @param thisMove Index of the move.
+	 * @param manIndex manIndex -1 is last move of the maneuver.
+	 * @return Additional angle, 0 if the move is a rotation or the last turn.
+	 */
+	public static int angle(AllMoves[] maneuver, int thisMove, int manIndex) {
+		try {
+			if ((thisMove < manIndex -1) && (maneuver[thisMove].getGroup() != 2)){
+				int i;
+				if (maneuver[thisMove +1].getGroup() != 2) {i = 1;}
+				else if (maneuver[thisMove +1] != AllMoves.SR) {i = 2;}
+				else {
+					if ((maneuver[thisMove].getGroup() == 0) && (maneuver[thisMove +2].getGroup() == 0)) {
+						if (maneuver[thisMove + 3].getGroup() == 2) {i = 4;}
+						else {i = 3;}
+					}
+					else {i = 2;}
+				}
+				return ((maneuver[thisMove].getRotation() * maneuver[thisMove +i].getRotation()) > 0) ? OVERSHOOT : -OVERSHOOT;
+			}
+			return 0;
+		} catch (ArrayIndexOutOfBoundsException e) {return 0;}
+	}
+}
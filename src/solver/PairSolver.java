@@ -0,0 +1,338 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Solves the first two layers pair by pair: each top corner is inserted together with the middle edge below it.
+ * For every pair a small table contains the number of moves needed to solve the pair alone, for all positions and
+ * orientations of its corner and edge and all orientations of the whole cube (24 * 24 * 4 entries).
+ * An iterative deepening search uses this table, the table of CrossSolver and the tables of already solved pairs as lower bounds,
+ * so the cross and finished pairs are restored at the end of every pair. Of the remaining pairs always the cheapest one is solved next.
+ * All shortest solutions are searched and the one with the lowest estimated robot time is taken: the search keeps the state of the
+ * robot (see MoveCost) along the path, so a solution that starts with a rotation right after a down turn of the solution so far
+ * is preferred over an equally long one that doesn't.
+ */
+public class PairSolver {
+
+	/**
+	 * Number of pairs (slots of the first two layers).
+	 */
+	protected static final int PAIRS = 4;
+
+	/**
+	 * Number of values (position * 3 + orientation) of one corner.
+	 */
+	private static final int CORNERVALUES = 3 * CubeState.CORNERS;
+
+	/**
+	 * Number of values (position * 2 + orientation) of one edge.
+	 */
+	private static final int EDGEVALUES = 2 * CubeState.EDGES;
+
+	/**
+	 * Number of entries of a pair table.
+	 */
+	private static final int SIZE = CORNERVALUES * EDGEVALUES * 4;
+
+	/**
+	 * Longest pair solution that is searched for. Real pairs need far less moves.
+	 */
+	private static final int MAXDEPTH = 16;
+
+	/**
+	 * Marks entries that haven't been reached yet while tables are built.
+	 */
+	private static final byte UNKNOWN = -1;
+
+	/**
+	 * New value (position * 3 + orientation) of a corner after a move (CORNERMOVE[move][value]).
+	 */
+	private static final int[][] CORNERMOVE = new int[CubeState.MOVECOUNT][CORNERVALUES];
+
+	/**
+	 * New value (position * 2 + orientation) of an edge after a move (EDGEMOVE[move][value]).
+	 */
+	private static final int[][] EDGEMOVE = new int[CubeState.MOVECOUNT][EDGEVALUES];
+
+	/**
+	 * Number of moves needed to solve each pair (DISTANCE[pair][index]).
+	 */
+	private static final byte[][] DISTANCE = new byte[PAIRS][SIZE];
+
+	static {
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			CubeState move = CubeState.MOVES[m];
+			for (int i = 0; i < CubeState.CORNERS; i++) {
+				for (int o = 0; o < 3; o++) {
+					CORNERMOVE[m][move.cp[i] * 3 + o] = i * 3 + (o + move.co[i]) % 3;
+				}
+			}
+			for (int i = 0; i < CubeState.EDGES; i++) {
+				for (int o = 0; o < 2; o++) {
+					EDGEMOVE[m][move.ep[i] * 2 + o] = i * 2 + (o ^ move.eo[i]);
+				}
+			}
+		}
+		for (int pair = 0; pair < PAIRS; pair++) {
+			build(pair);
+		}
+	}
+
+	/**
+	 * Supplies the distance table of the cross, which is used as lower bound.
+	 */
+	private final CrossSolver crossSolver;
+
+	/**
+	 * Moves of the current search path.
+	 */
+	private final int[] path = new int[MAXDEPTH];
+
+	/**
+	 * Cheapest solution found by the current search.
+	 */
+	private final int[] best = new int[MAXDEPTH];
+
+	/**
+	 * Number of moves in best, -1 if no solution was found.
+	 */
+	private int bestLength;
+
+	/**
+	 * Estimated robot time of best in milliseconds (see MoveCost).
+	 */
+	private int bestCost;
+
+	/**
+	 * Pair indices along the current search path (pairIndex[depth][pair]).
+	 */
+	private final int[][] pairIndex = new int[MAXDEPTH + 1][PAIRS];
+
+	/**
+	 * True for pairs that are already solved and have to be restored.
+	 */
+	private final boolean[] solved = new boolean[PAIRS];
+
+	/**
+	 * Constructor that uses the distance table of given cross solver.
+	 * @param crossSolver CrossSolver object.
+	 */
+	protected PairSolver(CrossSolver crossSolver) {
+		this.crossSolver = crossSolver;
+	}
+
+	/**
+	 * Returns index of a pair. Pair k consists of the top corner k (URF, UFL, ULB, UBR) and the middle edge 8 + k (FR, FL, BL, BR).
+	 * @param state CubeState object.
+	 * @param pair Number of pair.
+	 * @return Index into pair table.
+	 */
+	protected static int index(CubeState state, int pair) {
+		int corner = 0, edge = 0;
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			if (state.cp[i] == pair) {corner = i * 3 + state.co[i];}
+		}
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			if (state.ep[i] == 8 + pair) {edge = i * 2 + state.eo[i];}
+		}
+		return (corner * EDGEVALUES + edge) * 4 + state.rotations;
+	}
+
+	/**
+	 * Returns pair index after applying a move.
+	 * @param index Index before move.
+	 * @param move Number of move (ordinal of AllMoves).
+	 * @return Index after move.
+	 */
+	protected static int move(int index, int move) {
+		int rotations = (index + CubeState.MOVES[move].rotations) & 3;
+		index >>= 2;
+		int edge = EDGEMOVE[move][index % EDGEVALUES];
+		int corner = CORNERMOVE[move][index / EDGEVALUES];
+		return (corner * EDGEVALUES + edge) * 4 + rotations;
+	}
+
+	/**
+	 * Fills table of one pair by breadth-first search, starting at the solved pair in all four orientations of the whole cube.
+	 * @param pair Number of pair.
+	 */
+	private static void build(int pair) {
+		byte[] distance = DISTANCE[pair];
+		for (int i = 0; i < SIZE; i++) {distance[i] = UNKNOWN;}
+		CubeState goal = new CubeState();
+		for (int r = 0; r < 4; r++) {
+			distance[index(goal, pair)] = 0;
+			goal.applyMove(AllMoves.R);
+		}
+		boolean found = true;
+		for (int depth = 0; found; depth++) {
+			found = false;
+			for (int i = 0; i < SIZE; i++) {
+				if (distance[i] != depth) continue;
+				for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+					int next = move(i, m);
+					if (distance[next] == UNKNOWN) {
+						distance[next] = (byte)(depth + 1);
+						found = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns number of moves needed to solve a pair alone.
+	 * @param pair Number of pair.
+	 * @param index Index of pair (see index()).
+	 * @return Number of moves.
+	 */
+	protected static int getDistance(int pair, int index) {
+		return DISTANCE[pair][index];
+	}
+
+	/**
+	 * Returns lower bound of the number of moves needed to solve given pair while keeping cross and solved pairs.
+	 * @param cross Index of cross edges.
+	 * @param pairs Indices of all pairs.
+	 * @param target Number of pair to solve.
+	 * @return Number of moves.
+	 */
+	private int estimate(int cross, int[] pairs, int target) {
+		int h = Math.max(crossSolver.getDistance(cross), DISTANCE[target][pairs[target]]);
+		for (int pair = 0; pair < PAIRS; pair++) {
+			if (solved[pair] && DISTANCE[pair][pairs[pair]] > h) {h = DISTANCE[pair][pairs[pair]];}
+		}
+		return h;
+	}
+
+	/**
+	 * Depth first search for all solutions within given bound on the number of moves. A solution is kept in best if it is cheaper
+	 * than the best one so far; paths that already cost as much are cut off.
+	 * @param cross Index of cross edges.
+	 * @param depth Number of moves on the path so far.
+	 * @param bound Maximum number of moves.
+	 * @param target Number of pair to solve.
+	 * @param lastGroup Group of the last move (two moves of the same group are never applied in a row).
+	 * @param state State of the robot after the path (see MoveCost).
+	 * @param cost Estimated robot time of the path in milliseconds.
+	 */
+	private void search(int cross, int depth, int bound, int target, int lastGroup, int state, int cost) {
+		int[] pairs = pairIndex[depth];
+		int h = estimate(cross, pairs, target);
+		if (h == 0) {
+			cost += MoveCost.end(state, false);
+			if (cost < bestCost) {
+				System.arraycopy(path, 0, best, 0, depth);
+				bestLength = depth;
+				bestCost = cost;
+			}
+			return;
+		}
+		if (depth + h > bound || cost + h * MoveCost.MINTIME >= bestCost) return;
+		int[] nextPairs = pairIndex[depth + 1];
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			AllMoves move = AllMoves.values()[m];
+			if (move.getGroup() == lastGroup) continue;
+			for (int pair = 0; pair < PAIRS; pair++) {nextPairs[pair] = move(pairs[pair], m);}
+			path[depth] = m;
+			search(CrossSolver.move(cross, m), depth + 1, bound, target, move.getGroup(), MoveCost.next(move), cost + MoveCost.time(state, move));
+		}
+	}
+
+	/**
+	 * Returns state of the robot after the recorded solution of a cube-representation (see MoveCost).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return State of the robot.
+	 */
+	private static int robotState(RubiksCube cube) {
+		return (cube.solutionIndex > 0) ? MoveCost.next(cube.solution[cube.solutionIndex - 1]) : MoveCost.READY;
+	}
+
+	/**
+	 * Reads pairs of given cube-representation into the start of the search path and marks solved pairs.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Index of cross edges, -1 if the cube-representation is invalid or its cross isn't solved.
+	 */
+	private int prepare(RubiksCube cube) {
+		CubeState state = new CubeState();
+		if (!state.fromCube(cube)) return -1;
+		int[] pairs = pairIndex[0];
+		for (int pair = 0; pair < PAIRS; pair++) {pairs[pair] = index(state, pair);}
+		int cross = CrossSolver.index(state);
+		if (crossSolver.getDistance(cross) != 0) return -1;
+		for (int pair = 0; pair < PAIRS; pair++) {solved[pair] = (DISTANCE[pair][pairs[pair]] == 0);}
+		return cross;
+	}
+
+	/**
+	 * Returns true if given pair of a cube-representation is solved.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @param pair Number of pair.
+	 * @return boolean variable
+	 */
+	protected boolean isSolved(RubiksCube cube, int pair) {
+		return prepare(cube) >= 0 && solved[pair];
+	}
+
+	/**
+	 * Returns the cheapest shortest solution of one pair that keeps the cross and all other solved pairs. Nothing is applied to the cube.
+	 * @param cube Internal representation of scanned Rubik's Cube, the cross has to be solved.
+	 * @param pair Number of pair.
+	 * @return Sequence of moves, null if the pair is solved already or can't be solved.
+	 */
+	protected AllMoves[] solvePair(RubiksCube cube, int pair) {
+		int cross = prepare(cube);
+		if (cross < 0 || solved[pair]) return null;
+		int state = robotState(cube);
+		bestLength = -1;
+		bestCost = Integer.MAX_VALUE;
+		for (int bound = 0; bound < MAXDEPTH && bestLength < 0; bound++) {search(cross, 0, bound, pair, -1, state, 0);}
+		if (bestLength < 0) return null;
+		AllMoves[] moves = new AllMoves[bestLength];
+		for (int i = 0; i < bestLength; i++) {moves[i] = AllMoves.values()[best[i]];}
+		return moves;
+	}
+
+	/**
+	 * Solves all four pairs of given cube-representation. The cross has to be solved already.
+	 * Moves are applied to the cube (and recorded).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return False if a pair couldn't be solved (cube is left with the pairs solved so far).
+	 */
+	protected boolean solve(RubiksCube cube) {
+		int cross = prepare(cube);
+		if (cross < 0) return false;
+		int[] pairs = pairIndex[0];
+
+		int state = robotState(cube);
+		AllMoves[] move = new AllMoves[1];
+		while (true) {
+			int target = -1;
+			bestLength = -1;
+			bestCost = Integer.MAX_VALUE;
+			for (int bound = 0; bound < MAXDEPTH && target < 0; bound++) {
+				for (int pair = 0; pair < PAIRS; pair++) {
+					if (solved[pair]) continue;
+					int cost = bestCost;
+					search(cross, 0, bound, pair, -1, state, 0);
+					if (bestCost < cost) {target = pair;}
+				}
+			}
+			if (target < 0) {
+				for (int pair = 0; pair < PAIRS; pair++) {
+					if (!solved[pair]) return false;
+				}
+				return true;
+			}
+			for (int i = 0; i < bestLength; i++) {
+				int m = best[i];
+				move[0] = AllMoves.values()[m];
+				cube.applyMoves(move);
+				state = MoveCost.next(move[0]);
+				cross = CrossSolver.move(cross, m);
+				for (int pair = 0; pair < PAIRS; pair++) {pairs[pair] = move(pairs[pair], m);}
+			}
+			for (int pair = 0; pair < PAIRS; pair++) {solved[pair] = (DISTANCE[pair][pairs[pair]] == 0);}
+		}
+	}
+}
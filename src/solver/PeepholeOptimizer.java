@@ -0,0 +1,155 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import enums.AllMoves;
+
+/**
+ * Shortens solutions by replacing short windows of moves with cheaper sequences of the same effect.
+ * A database contains for every effect (resulting state when applied to the solved cube) of all robot move sequences up to
+ * MAXLENGTH moves the sequence with the lowest estimated robot time (see MoveCost). A window of the solution whose effect is in the
+ * database is replaced if the whole solution gets cheaper. Windows with no effect at all are removed.
+ * Every replacement is checked on two cube-representations before it is applied.
+ * The database is only read after it is built, so one instance can be used by several threads.
+ */
+public class PeepholeOptimizer {
+
+	/**
+	 * Longest sequence in the database.
+	 */
+	private static final int MAXLENGTH = 5;
+
+	/**
+	 * Longest window of the solution that is looked up.
+	 */
+	private static final int MAXWINDOW = 10;
+
+	/**
+	 * Shared instance, created by getInstance().
+	 */
+	private static PeepholeOptimizer instance = null;
+
+	/**
+	 * Cheapest sequence for every effect.
+	 */
+	private final Map<StateKey, AllMoves[]> database = new HashMap<>();
+
+	/**
+	 * Constructor that builds the database.
+	 */
+	private PeepholeOptimizer() {
+		CubeState[] states = new CubeState[MAXLENGTH + 1];
+		for (int i = 0; i <= MAXLENGTH; i++) {states[i] = new CubeState();}
+		build(states, new AllMoves[MAXLENGTH], 0, -1);
+	}
+
+	/**
+	 * Returns the shared PeepholeOptimizer, the database is built at first call.
+	 * @return PeepholeOptimizer object.
+	 */
+	protected static synchronized PeepholeOptimizer getInstance() {
+		if (instance == null) {instance = new PeepholeOptimizer();}
+		return instance;
+	}
+
+	/**
+	 * Adds all sequences that start with given moves to the database. Two moves of the same group are never applied in a row.
+	 * @param states States after each move of the sequence (states[0] is solved).
+	 * @param moves Moves of the sequence.
+	 * @param length Number of moves so far.
+	 * @param lastGroup Group of the last move.
+	 */
+	private void build(CubeState[] states, AllMoves[] moves, int length, int lastGroup) {
+		StateKey effect = new StateKey(states[length]);
+		AllMoves[] known = database.get(effect);
+		if (known == null || MoveCost.time(moves, 0, length) < MoveCost.time(known, 0, known.length)) {
+			AllMoves[] sequence = new AllMoves[length];
+			System.arraycopy(moves, 0, sequence, 0, length);
+			database.put(effect, sequence);
+		}
+		if (length == MAXLENGTH) return;
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {
+			AllMoves move = AllMoves.values()[m];
+			if (move.getGroup() == lastGroup) continue;
+			moves[length] = move;
+			states[length + 1].multiply(states[length], CubeState.MOVES[m]);
+			build(states, moves, length + 1, move.getGroup());
+		}
+	}
+
+	/**
+	 * Returns true if a window and its replacement have the same effect on the facelets of the cube.
+	 * @param original Cube-representation the window is applied to.
+	 * @param replaced Cube-representation the replacement is applied to.
+	 * @param moves Solution.
+	 * @param from First move of window.
+	 * @param to First move after window.
+	 * @param replacement Sequence that replaces the window.
+	 * @return boolean variable
+	 */
+	private static boolean check(RubiksCube original, RubiksCube replaced, AllMoves[] moves, int from, int to, AllMoves[] replacement) {
+		original.resetSolved();
+		replaced.resetSolved();
+		for (int i = from; i < to; i++) {original.applyMoves(new AllMoves[] {moves[i]});}
+		replaced.applyMoves(replacement);
+		return original.getRotations() == replaced.getRotations() && Arrays.deepEquals(original.elements, replaced.elements);
+	}
+
+	/**
+	 * Replaces windows of the solution of a cube-representation until no replacement makes it cheaper.
+	 * Moves of the same group that meet at the border of a replacement are merged by a later replacement.
+	 * The cube itself isn't changed, only its solution array.
+	 * @param cube Cube-representation with recorded solution.
+	 * @param from First move of the solution that may be changed.
+	 * @return Number of moves saved.
+	 */
+	protected int optimize(RubiksCube cube, int from) {
+		int start = cube.solutionIndex;
+		CubeState effect = new CubeState();
+		CubeState next = new CubeState();
+		RubiksCube original = new RubiksCube();
+		RubiksCube replaced = new RubiksCube();
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int cost = MoveCost.time(cube.solution, from, cube.solutionIndex);
+			for (int i = from; i < cube.solutionIndex && !improved; i++) {
+				effect.resetSolved();
+				for (int to = i + 1; to <= cube.solutionIndex && to - i <= MAXWINDOW && !improved; to++) {
+					next.multiply(effect, CubeState.MOVES[cube.solution[to - 1].ordinal()]);
+					effect.copyFrom(next);
+					AllMoves[] replacement = database.get(new StateKey(effect));
+					if (replacement == null) continue;
+					AllMoves[] candidate = replace(cube, i, to, replacement);
+					int length = cube.solutionIndex - (to - i) + replacement.length;
+					int candidateCost = MoveCost.time(candidate, from, length);
+					if (candidateCost > cost || (candidateCost == cost && length >= cube.solutionIndex)) continue;
+					if (!check(original, replaced, cube.solution, i, to, replacement)) continue;
+					System.arraycopy(candidate, 0, cube.solution, 0, length);
+					for (int k = length; k < cube.solutionIndex; k++) {cube.solution[k] = AllMoves.N;}
+					cube.solutionIndex = length;
+					improved = true;
+				}
+			}
+		}
+		return start - cube.solutionIndex;
+	}
+
+	/**
+	 * Returns solution with a window replaced.
+	 * @param cube Cube-representation with recorded solution.
+	 * @param from First move of window.
+	 * @param to First move after window.
+	 * @param replacement Sequence that replaces the window.
+	 * @return New solution array.
+	 */
+	private static AllMoves[] replace(RubiksCube cube, int from, int to, AllMoves[] replacement) {
+		AllMoves[] candidate = new AllMoves[cube.solutionIndex - (to - from) + replacement.length];
+		System.arraycopy(cube.solution, 0, candidate, 0, from);
+		System.arraycopy(replacement, 0, candidate, from, replacement.length);
+		System.arraycopy(cube.solution, to, candidate, from + replacement.length, cube.solutionIndex - to);
+		return candidate;
+	}
+}
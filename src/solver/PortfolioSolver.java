@@ -0,0 +1,298 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import enums.AllMoves;
+
+/**
+ * Runs several solving engines at the same time and keeps the cheapest verified solution (lowest estimated robot time, see MoveCost).
+ * The classic layer by layer method (CubeAlgorithm without tables) is run first in the calling thread, so a solution is available immediately.
+ * The other engines (CubeAlgorithm with tables, OrientationSolver and BeamSolver) run on their own threads, each on its own copy of the cube.
+ * finish() takes the best solution found until then, e.g. when the operator confirms the solution. Engines that are still running are
+ * interrupted then and stop after their current stage (CubeAlgorithm, OrientationSolver) or partial solution (BeamSolver),
+ * so they don't compete with the motor control for the processor.
+ */
+public class PortfolioSolver {
+
+	/**
+	 * Width of the beam of BeamSolver.
+	 */
+	private static final int BEAMWIDTH = 8;
+
+	/**
+	 * Engine that solves its own copy of the cube-representation.
+	 */
+	private abstract static class Engine {
+
+		/**
+		 * Name of the engine, shown as winner.
+		 */
+		private final String name;
+
+		/**
+		 * Constructor that sets name of engine.
+		 * @param name Name of the engine.
+		 */
+		Engine(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Solves a cube-representation, the solution is recorded in the cube.
+		 * @param cube Copy of the scanned cube-representation.
+		 * @return Result of the engine.
+		 */
+		abstract SolveResult solve(RubiksCube cube);
+	}
+
+	/**
+	 * Threads the engines run on.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Time budget of BeamSolver in milliseconds.
+	 */
+	private final long budget;
+
+	/**
+	 * Number of the current search, results of older searches are ignored.
+	 */
+	private int generation = 0;
+
+	/**
+	 * Number of engines of the current search that are still running.
+	 */
+	private int running = 0;
+
+	/**
+	 * Tasks of the engines of the current search that run on their own threads.
+	 */
+	private final List<Future<?>> tasks = new ArrayList<>();
+
+	/**
+	 * Scanned cube-representation of the current search (copy, is never changed).
+	 */
+	private final RubiksCube original = new RubiksCube();
+
+	/**
+	 * Best solution of the current search, null if there is none.
+	 */
+	private AllMoves[] best = null;
+
+	/**
+	 * Result of the engine that found the best solution.
+	 */
+	private SolveResult bestResult = null;
+
+	/**
+	 * Name of the engine that found the best solution.
+	 */
+	private String winner = null;
+
+	/**
+	 * Constructor that creates the threads of the engines.
+	 * @param budget Time budget of BeamSolver in milliseconds (should end before the solution is normally taken).
+	 */
+	protected PortfolioSolver(long budget) {
+		this.budget = budget;
+		executor = Executors.newFixedThreadPool(3, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "PortfolioSolver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Offers the solution of an engine. It is kept if it solves the scanned cube and is cheaper than the best solution so far.
+	 * @param search Number of search the engine belongs to.
+	 * @param engine Engine that found the solution.
+	 * @param result Result of the engine.
+	 * @param cube Copy of the cube the engine worked on (with recorded solution).
+	 */
+	private synchronized void offer(int search, Engine engine, SolveResult result, RubiksCube cube) {
+		if (search != generation || !result.isSolved()) return;
+		if (best != null && result.getApplyTime() >= bestResult.getApplyTime()) return;
+		AllMoves[] moves = new AllMoves[cube.solutionIndex - original.solutionIndex];
+		System.arraycopy(cube.solution, original.solutionIndex, moves, 0, moves.length);
+		RubiksCube check = new RubiksCube();
+		check.copyFrom(original);
+		check.setRecording(false);
+		check.applyMoves(moves);
+		if (!check.isSolved()) return;
+		best = moves;
+		bestResult = result;
+		winner = engine.name;
+	}
+
+	/**
+	 * Marks an engine as finished.
+	 * @param search Number of search the engine belongs to.
+	 */
+	private synchronized void finished(int search) {
+		if (search != generation) return;
+		running--;
+		notifyAll();
+	}
+
+	/**
+	 * Runs an engine on a copy of the scanned cube-representation.
+	 * @param search Number of search.
+	 * @param engine Engine to run.
+	 */
+	private void run(int search, Engine engine) {
+		RubiksCube cube = new RubiksCube();
+		synchronized (this) {
+			if (search != generation) return;
+			cube.copyFrom(original);
+		}
+		try {
+			offer(search, engine, engine.solve(cube), cube);
+		} finally {
+			finished(search);
+		}
+	}
+
+	/**
+	 * Starts a new search for given cube-representation. Returns after the classic method has found its solution,
+	 * the other engines keep running. The cube itself isn't changed.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return True if a solution is available.
+	 */
+	protected boolean start(RubiksCube cube) {
+		final int search;
+		final Engine[] engines = {
+			new Engine("LBL") {
+				@Override
+				SolveResult solve(RubiksCube copy) {
+					CubeAlgorithm algorithm = new CubeAlgorithm();
+					algorithm.setOptimalCross(false);
+					algorithm.setPairSolving(false);
+					algorithm.setLastLayerTable(false);
+					return algorithm.solve(copy);
+				}
+			},
+			new Engine("Tables") {
+				@Override
+				SolveResult solve(RubiksCube copy) {return new CubeAlgorithm().solve(copy);}
+			},
+			new Engine("Orientations") {
+				@Override
+				SolveResult solve(RubiksCube copy) {return new OrientationSolver(1).solve(copy);}
+			},
+			new Engine("Beam") {
+				@Override
+				SolveResult solve(RubiksCube copy) {return new BeamSolver(BEAMWIDTH, budget).solve(copy);}
+			}
+		};
+		synchronized (this) {
+			cancel();
+			search = ++generation;
+			original.copyFrom(cube);
+			best = null;
+			bestResult = null;
+			winner = null;
+			running = engines.length;
+		}
+		if (CubeValidator.check(cube) != null) {
+			synchronized (this) {running = 0;}
+			return false;
+		}
+		run(search, engines[0]);
+		synchronized (this) {
+			for (int i = 1; i < engines.length && search == generation; i++) {
+				final Engine engine = engines[i];
+				tasks.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {PortfolioSolver.this.run(search, engine);}
+				}));
+			}
+			return best != null;
+		}
+	}
+
+	/**
+	 * Interrupts the engines of the current search that are still running and removes those that haven't started yet.
+	 */
+	private synchronized void cancel() {
+		for (Future<?> task : tasks) {task.cancel(true);}
+		tasks.clear();
+	}
+
+	/**
+	 * Waits until all engines of the current search are finished or the deadline is reached.
+	 * @param deadline Point of time (System.currentTimeMillis()) to stop waiting.
+	 */
+	protected synchronized void await(long deadline) {
+		long now = System.currentTimeMillis();
+		while (running > 0 && now < deadline) {
+			try {
+				wait(deadline - now);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			now = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Ends the current search and applies the best solution found so far to the cube-representation (the solution is recorded
+	 * like by CubeAlgorithm.solve()). Results of engines that are still running are ignored.
+	 * @param cube Cube-representation that was passed to start().
+	 * @return Result of the engine that found the best solution, not solved if there is none.
+	 */
+	protected SolveResult finish(RubiksCube cube) {
+		AllMoves[] moves;
+		SolveResult result;
+		synchronized (this) {
+			generation++;
+			cancel();
+			moves = best;
+			result = bestResult;
+		}
+		if (moves == null) return new SolveResult(false, new int[CubeAlgorithm.STAGES.length], cube.solutionIndex, 0, 0);
+		int first = cube.solutionIndex;
+		cube.setRecording(true);
+		cube.applyMoves(moves);
+		cube.shortenSolution();
+		cube.setRecording(false);
+		int[] stageLengths = new int[CubeAlgorithm.STAGES.length];
+		for (int stage = 0; stage < stageLengths.length; stage++) {stageLengths[stage] = result.getStageLength(stage);}
+		return new SolveResult(cube.isSolved(), stageLengths, result.getSaved(), cube.solutionIndex, result.getSearchTime(),
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
+	}
+
+	/**
+	 * Returns length of the best solution found so far.
+	 * @return Number of moves, 0 if there is no solution.
+	 */
+	protected synchronized int getBestLength() {return (best == null) ? 0 : best.length;}
+
+	/**
+	 * Returns name of the engine that found the best solution so far.
+	 * @return Name of engine, null if there is no solution.
+	 */
+	protected synchronized String getWinner() {return winner;}
+
+	/**
+	 * Solves a cube-representation with all engines and waits for them at most until the deadline.
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @param timeout Time to wait for the engines in milliseconds.
+	 * @return Result of the engine that found the best solution.
+	 */
+	protected SolveResult solve(RubiksCube cube, long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		start(cube);
+		await(deadline);
+		return finish(cube);
+	}
+}
@@ -0,0 +1,56 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * ScanSource that replays a ScanRecording without any hardware.
+ * A requested sample is answered with the first recorded sample of the current face that was taken at or after the requested table angle.
+ */
+class ReplayScanSource implements ScanSource {
+	
+	/**
+	 * Recording that is replayed.
+	 */
+	private ScanRecording recording;
+	
+	/**
+	 * Number of current face in recording.
+	 */
+	private int face = -1;
+	
+	/**
+	 * Index of next unused sample in recording.
+	 */
+	private int cursor = 0;
+	
+	/**
+	 * Constructor that initializes replay of given recording.
+	 * @param recording ScanRecording object to replay.
+	 */
+	ReplayScanSource(ScanRecording recording) {
+		this.recording = recording;
+	}
+	
+	public void startScan() {
+		face = -1;
+		cursor = 0;
+	}
+	
+	public void startFace() {
+		face++;
+		cursor = recording.faceStart(face);
+	}
+	
+	public int fetchSample(int angle, float[] sample, int offset) {
+		int end = recording.faceEnd(face);
+		if (cursor >= end) {
+			for (int c = 0; c < 3; c++) {sample[offset + c] = 0;}
+			return angle;
+		}
+		while (cursor < end - 1 && recording.getTacho(cursor) < angle) {cursor++;}
+		for (int c = 0; c < 3; c++) {sample[offset + c] = recording.getValue(cursor, c);}
+		return recording.getTacho(cursor++);
+	}
+	
+	public void finishFace(AllMoves[] maneuver) {}
+}
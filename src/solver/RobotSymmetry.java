@@ -0,0 +1,193 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import enums.AllMoves;
+import enums.ColorsEnum;
+
+/**
+ * Symmetries of the cube that keep the moves of the robot: rotations of the whole cube around the vertical axis
+ * and the reflection that swaps left and right face.
+ * A reflected cube is solved by the reflected solution, which turns every F, D and R move into its inverse.
+ * The reflection also swaps the color scheme, so green and blue are exchanged to get a cube with the usual colors again.
+ * SUBGROUP contains the symmetries that commute with the robot moves, that is that map every move to a move. Only they can be used
+ * to reduce distance tables: a rotation of the whole cube maps a front turn to a turn of a side face, which the robot can't do in one move.
+ */
+public class RobotSymmetry {
+
+	/**
+	 * Number of symmetries: 0...3 rotations of the whole cube, each without (0...3) and with reflection (4...7).
+	 */
+	protected static final int COUNT = 8;
+
+	/**
+	 * Face (ordinal) each face is moved to by the reflection.
+	 */
+	private static final int[] MIRRORFACE = {0, 1, 4, 3, 2, 5};
+
+	/**
+	 * Color (indexed by ordinal) each color is replaced with by the reflection.
+	 */
+	private static final ColorsEnum[] MIRRORCOLOR = {ColorsEnum.Y, ColorsEnum.W, ColorsEnum.B, ColorsEnum.O, ColorsEnum.G, ColorsEnum.R, ColorsEnum.N};
+
+	/**
+	 * Direction (x, y, z) of the normal of each face (ordinal): x points to the right face, y to the back face and z to the up face.
+	 */
+	private static final int[][] NORMAL = {{0, 0, 1}, {0, 0, -1}, {-1, 0, 0}, {0, -1, 0}, {1, 0, 0}, {0, 1, 0}};
+
+	/**
+	 * Permutations of the three axes, the first one keeps all axes.
+	 */
+	private static final int[][] AXES = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+	/**
+	 * Symmetries of the cube that map every robot move to a robot move, as facelet permutations (facelet, face * 8 + element,
+	 * each facelet is moved to). The first one is the identity. Computed from all 48 symmetries of the cube, so tables that use
+	 * them can't get out of step with the moves of RubiksCube.
+	 */
+	protected static final int[][] SUBGROUP;
+
+	/**
+	 * Move (ordinal of AllMoves) each robot move is mapped to by each symmetry of SUBGROUP (SUBGROUPMOVE[symmetry][move]).
+	 */
+	protected static final int[][] SUBGROUPMOVE;
+
+	static {
+		int[][] position = new int[48][];
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			for (int k = 0; k < 3; k++) {position[CubeState.CORNERFACELETS[i][k]] = position(CubeState.CORNERFACELETS[i], k);}
+		}
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			for (int k = 0; k < 2; k++) {position[CubeState.EDGEFACELETS[i][k]] = position(CubeState.EDGEFACELETS[i], k);}
+		}
+		int[][] moves = new int[CubeState.MOVECOUNT][];
+		for (int m = 0; m < CubeState.MOVECOUNT; m++) {moves[m] = permutation(CubeState.MOVES[m]);}
+		
+		List<int[]> symmetries = new ArrayList<>();
+		List<int[]> moveMaps = new ArrayList<>();
+		for (int[] axes : AXES) {
+			for (int signs = 0; signs < 8; signs++) {
+				int[] symmetry = new int[48];
+				for (int facelet = 0; facelet < 48; facelet++) {
+					int[] image = new int[3];
+					for (int a = 0; a < 3; a++) {image[a] = (((signs >> a) & 1) == 0 ? 1 : -1) * position[facelet][axes[a]];}
+					int target = 0;
+					while (!Arrays.equals(position[target], image)) target++;
+					symmetry[facelet] = target;
+				}
+				int[] moveMap = conjugates(symmetry, moves);
+				if (moveMap != null) {
+					symmetries.add(symmetry);
+					moveMaps.add(moveMap);
+				}
+			}
+		}
+		SUBGROUP = symmetries.toArray(new int[symmetries.size()][]);
+		SUBGROUPMOVE = moveMaps.toArray(new int[moveMaps.size()][]);
+	}
+
+	/**
+	 * Returns position of a facelet: twice the normal of its face plus the normals of all faces of its piece.
+	 * Different facelets get different positions and every symmetry of the cube just permutes and negates the coordinates.
+	 * @param piece Facelets of a corner or edge.
+	 * @param k Facelet of the piece.
+	 * @return Coordinates x, y and z.
+	 */
+	private static int[] position(int[] piece, int k) {
+		int[] position = new int[3];
+		for (int a = 0; a < 3; a++) {
+			position[a] = NORMAL[piece[k] / 8][a];
+			for (int facelet : piece) {position[a] += NORMAL[facelet / 8][a];}
+		}
+		return position;
+	}
+
+	/**
+	 * Returns facelet permutation of a state: the facelet each facelet of the solved cube is moved to.
+	 * @param state CubeState object (rotations are ignored).
+	 * @return Target facelet of every facelet.
+	 */
+	private static int[] permutation(CubeState state) {
+		int[] permutation = new int[48];
+		for (int i = 0; i < CubeState.CORNERS; i++) {
+			for (int k = 0; k < 3; k++) {permutation[CubeState.CORNERFACELETS[state.cp[i]][k]] = CubeState.CORNERFACELETS[i][(k + state.co[i]) % 3];}
+		}
+		for (int i = 0; i < CubeState.EDGES; i++) {
+			for (int k = 0; k < 2; k++) {permutation[CubeState.EDGEFACELETS[state.ep[i]][k]] = CubeState.EDGEFACELETS[i][(k + state.eo[i]) % 2];}
+		}
+		return permutation;
+	}
+
+	/**
+	 * Returns the moves that the robot moves are turned into by a symmetry (symmetry * move * inverse symmetry).
+	 * @param symmetry Facelet permutation of the symmetry.
+	 * @param moves Facelet permutation of every robot move.
+	 * @return Move (ordinal) every move is mapped to, null if any move isn't mapped to a robot move.
+	 */
+	private static int[] conjugates(int[] symmetry, int[][] moves) {
+		int[] map = new int[moves.length];
+		int[] conjugate = new int[48];
+		for (int m = 0; m < moves.length; m++) {
+			for (int facelet = 0; facelet < 48; facelet++) {conjugate[symmetry[facelet]] = symmetry[moves[m][facelet]];}
+			map[m] = 0;
+			while (map[m] < moves.length && !Arrays.equals(moves[map[m]], conjugate)) map[m]++;
+			if (map[m] == moves.length) return null;
+		}
+		return map;
+	}
+
+	/**
+	 * Writes the reflection of a cube-representation to another one. Solution of the target is cleared and recording is switched off.
+	 * Element i of every face is moved to element 2 - i (mod 8) of the reflected face, rotations of the whole cube change their sign.
+	 * @param from RubiksCube object to reflect.
+	 * @param to RubiksCube object to write to (must not be from).
+	 */
+	protected static void mirror(RubiksCube from, RubiksCube to) {
+		to.resetSolved();
+		for (int r = 0; r < from.getRotations(); r++) {to.rotate();}
+		for (int f = 0; f < 6; f++) {
+			for (int i = 0; i < 8; i++) {
+				ColorsEnum color = from.elements[f][i];
+				to.elements[MIRRORFACE[f]][(10 - i) % 8] = (color == null) ? null : MIRRORCOLOR[color.ordinal()];
+			}
+		}
+	}
+
+	/**
+	 * Writes the image of a cube-representation under a symmetry to another one: the reflection for symmetries 4...7,
+	 * followed by symmetry % 4 rotations. Solution of the target is cleared and recording is switched off.
+	 * A solution of the image is turned into a solution of the original cube by putting the rotations in front of it
+	 * and reflecting all moves for symmetries 4...7.
+	 * @param from RubiksCube object to transform.
+	 * @param symmetry Number of symmetry (0...7).
+	 * @param to RubiksCube object to write to (must not be from).
+	 */
+	protected static void transform(RubiksCube from, int symmetry, RubiksCube to) {
+		if (symmetry >= COUNT / 2) {mirror(from, to);}
+		else {
+			to.copyFrom(from);
+			to.solutionIndex = 0;
+			to.setRecording(false);
+		}
+		for (int r = 0; r < symmetry % 4; r++) {to.rotate();}
+	}
+
+	/**
+	 * Returns reflection of a move.
+	 * @param move Move to reflect.
+	 * @return Inverse move for quarter turns and rotations, same move for half turns and N.
+	 */
+	protected static AllMoves mirror(AllMoves move) {
+		switch (move) {
+		case F: return AllMoves.FI;
+		case FI: return AllMoves.F;
+		case D: return AllMoves.DI;
+		case DI: return AllMoves.D;
+		case R: return AllMoves.RI;
+		case RI: return AllMoves.R;
+		default: return move;
+		}
+	}
+}
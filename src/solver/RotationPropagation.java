@@ -0,0 +1,68 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Removes whole cube rotations that aren't needed to reach the next front turn.
+ * A front turn after rotations turns one of the four side faces of the original orientation, down turns commute with rotations.
+ * So a solution is a sequence of turns of side faces and of the down face; rotations are only needed to bring the next turned
+ * side face to the front. This pass rewrites the solution with exactly these rotations: the shortest rotation before every front turn,
+ * placed after the down turn in front of it (the robot is faster if a rotation follows a down turn), and no rotations at the end.
+ */
+public class RotationPropagation {
+
+	/**
+	 * Rotation (indexed by number of quarter turns 0...3) that changes orientation of the whole cube by that amount.
+	 */
+	private static final AllMoves[] ROTATIONS = {AllMoves.N, AllMoves.R, AllMoves.SR, AllMoves.RI};
+
+	/**
+	 * Down turn (indexed by number of quarter turns 0...3).
+	 */
+	private static final AllMoves[] DOWNTURNS = {AllMoves.N, AllMoves.D, AllMoves.SD, AllMoves.DI};
+
+	/**
+	 * Rewrites the solution of a cube-representation if that makes it cheaper (see MoveCost).
+	 * The cube-representation is rotated, so it stays the result of applying its solution.
+	 * @param cube Cube-representation with recorded solution.
+	 * @param from First move of the solution that may be changed.
+	 * @return Number of moves saved.
+	 */
+	protected static int apply(RubiksCube cube, int from) {
+		AllMoves[] moves = new AllMoves[cube.solutionIndex - from];
+		int length = 0;
+		int orientation = 0;
+		int current = 0;
+		int down = 0;
+		for (int i = from; i < cube.solutionIndex; i++) {
+			AllMoves move = cube.solution[i];
+			switch (move.getGroup()) {
+			case 0:
+				if (down != 0) {moves[length++] = DOWNTURNS[down];}
+				if (orientation != current) {moves[length++] = ROTATIONS[(orientation - current) & 3];}
+				moves[length++] = move;
+				current = orientation;
+				down = 0;
+				break;
+			case 1: down = (down + move.getRotation()) & 3; break;
+			case 2: orientation = (orientation + move.getRotation()) & 3; break;
+			default: break;
+			}
+		}
+		if (down != 0) {moves[length++] = DOWNTURNS[down];}
+
+		int before = cube.solutionIndex - from;
+		int cost = MoveCost.time(moves, 0, length);
+		int oldCost = MoveCost.time(cube.solution, from, cube.solutionIndex);
+		if (cost > oldCost || (cost == oldCost && length >= before)) return 0;
+		System.arraycopy(moves, 0, cube.solution, from, length);
+		for (int i = from + length; i < cube.solutionIndex; i++) {cube.solution[i] = AllMoves.N;}
+		cube.solutionIndex = from + length;
+
+		boolean recording = cube.getRecording();
+		cube.setRecording(false);
+		for (int r = 0; r < ((current - orientation) & 3); r++) {cube.rotate();}
+		cube.setRecording(recording);
+		return before - length;
+	}
+}
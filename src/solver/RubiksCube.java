@@ -2,11 +2,11 @@ package solver;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Random;
 
 import enums.AllMoves;
 import enums.ColorsEnum;
 import enums.FacesEnum;
-import lejos.hardware.lcd.LCD;
 
 /**
  * An object of this class represents the Rubik's Cube inside the Roberta-EV3CubeSolver.
@@ -60,6 +60,12 @@ public class RubiksCube {
 	 */
 	protected boolean getRecording() {return this.recording;} 
 	
+	/**
+	 * Returns number of 90 degrees rotations of the whole cube.
+	 * @return Rotations modulo 4 (0...3).
+	 */
+	protected int getRotations() {return ((rotations % 4) + 4) % 4;}
+	
 	/**
 	 * Constructor that initializes cube in NULL-state.
 	 * Every element contains AllMoves.N.
@@ -77,6 +83,44 @@ public class RubiksCube {
 		applyMoves(maneuver);
 	}
 	
+	/**
+	 * Receives warnings about inconsistent states, null if nobody listens.
+	 */
+	private SolverListener listener = null;
+	
+	/**
+	 * Setter-method for the listener that receives warnings of this cube-representation.
+	 * @param listener SolverListener object, null to remove listener.
+	 */
+	protected void setListener(SolverListener listener) {this.listener = listener;}
+	
+	/**
+	 * Passes a warning to the listener (if there is one).
+	 * @param message Short description of the problem.
+	 */
+	private void warning(String message) {
+		if (listener != null) {listener.warning(message);}
+	}
+	
+	/**
+	 * Generator used for random scrambles.
+	 */
+	private static final Random RANDOM = new Random();
+	
+	/**
+	 * Copies elements, orientation and solution of another cube-representation into this one.
+	 * @param other RubiksCube object to copy.
+	 */
+	protected void copyFrom(RubiksCube other) {
+		for (int i = 0; i < 6; i++) {
+			System.arraycopy(other.elements[i], 0, elements[i], 0, 8);
+		}
+		rotations = other.rotations;
+		recording = other.recording;
+		solutionIndex = other.solutionIndex;
+		System.arraycopy(other.solution, 0, solution, 0, MAXSOLLENGTH);
+	}
+	
 	/**
 	 * Method returns Edge object. Used for searching the position of a specifically colored edge.
 	 * @param i Number of Edge to return (Rubik's cube has 12 edges).
@@ -96,7 +140,7 @@ public class RubiksCube {
 		case 9: return new Edge(elements, FacesEnum.L, 5, FacesEnum.D, 7);
 		case 10: return new Edge(elements, FacesEnum.R, 5, FacesEnum.D, 3);
 		case 11: return new Edge(elements, FacesEnum.B, 5, FacesEnum.D, 5);
-		default: LCD.drawString("E-Return Failure", 0, 0); return new Edge(elements, FacesEnum.R, 0, FacesEnum.R, 0);
+		default: warning("E-Return Failure"); return new Edge(elements, FacesEnum.R, 0, FacesEnum.R, 0);
 		}
 	}
 	
@@ -115,7 +159,7 @@ public class RubiksCube {
 		case 5: return new Corner(elements, FacesEnum.U, 2, FacesEnum.R, 2, FacesEnum.B, 0);
 		case 6: return new Corner(elements, FacesEnum.L, 6, FacesEnum.B, 4, FacesEnum.D, 6);
 		case 7: return new Corner(elements, FacesEnum.R, 4, FacesEnum.B, 6, FacesEnum.D, 4);
-		default: LCD.drawString("C-Return Failure", 0, 0); return new Corner(elements, FacesEnum.R, 0, FacesEnum.R, 0, FacesEnum.R, 0);
+		default: warning("C-Return Failure"); return new Corner(elements, FacesEnum.R, 0, FacesEnum.R, 0, FacesEnum.R, 0);
 		}
 	}
 	
@@ -294,10 +338,19 @@ public class RubiksCube {
 	 * @param length Length of randomly generated maneuver that is applied to scramble the cube.
 	 */
 	protected void resetScrambled(int length) {
+		resetScrambled(length, RANDOM);
+	}
+	
+	/**
+	 * Reset cube-representation to randomly scrambled state.
+	 * @param length Length of randomly generated maneuver that is applied to scramble the cube.
+	 * @param random Generator that moves are drawn from (a fixed seed gives reproducible scrambles).
+	 */
+	protected void resetScrambled(int length, Random random) {
 		resetSolved();
 		AllMoves[] scrambleMoves = new AllMoves[length];
 		for (int i = 0; i < length; i++) {
-			scrambleMoves[i] = AllMoves.values()[(int)(Math.random()*9)];
+			scrambleMoves[i] = AllMoves.values()[random.nextInt(9)];
 		}
 		applyMoves(scrambleMoves);
 	}
@@ -328,7 +381,7 @@ public class RubiksCube {
 			case R: rotate(); break;
 			case RI: rotateInverted(); break;
 			case SR: rotate(); rotate(); break;
-			case N: LCD.drawString("N-Move parsed",0,0); break;
+			case N: warning("N-Move parsed"); break;
 			}
 		}
 	}
@@ -345,18 +398,6 @@ public class RubiksCube {
 		System.out.print("\n");
 	}
 	
-	/**
-	 * Print elements of cube-representation to EV3-Display.
-	 */
-	protected void printEV3() {
-		for (int i = 0; i < 6; i++) {
-			LCD.drawString(FacesEnum.values()[i] + ": ", 0, i);
-			for (int j = 0; j < 8; j++) {
-				LCD.drawString(elements[i][j] + " ", 3+j*2, i);
-			}
-		}
-	}
-	
 	/**
 	 * Returns true when cube-representation is in solved-state.
 	 * @return boolean variable
@@ -369,7 +410,6 @@ public class RubiksCube {
 		ColorsEnum frontColor = ColorsEnum.values()[2 + ((rotCounter + 1) % 4)];
 		ColorsEnum rightColor = ColorsEnum.values()[2 + ((rotCounter + 2) % 4)];
 		ColorsEnum backColor = ColorsEnum.values()[2 + ((rotCounter + 3) % 4)];
-		LCD.drawString("" + upColor + downColor + leftColor + frontColor + rightColor + backColor, 0, 7);
 		for (int i = 0; i < 8; i++) {
 			if (elements[FacesEnum.U.ordinal()][i] != upColor) return false;
 			else if (elements[FacesEnum.D.ordinal()][i] != downColor) return false;
@@ -552,7 +592,7 @@ public class RubiksCube {
 			}
 			solutionWriter.write("\n");
 			for (int i = 0; i < solutionIndex; i++) {
-				solutionWriter.write(MotorController.overshoot(solution, i, solutionIndex) + "\t");
+				solutionWriter.write(Overshoot.angle(solution, i, solutionIndex) + "\t");
 			}
 			solutionWriter.write("\n");
 			solutionWriter.close();
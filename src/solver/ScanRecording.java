@@ -0,0 +1,229 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Raw sensor stream of one cube scan.
+ * Every sample is saved as tuple of timestamp, table angle and RGB-values, grouped by scanned face.
+ * Recordings are saved to compact binary files and can be replayed by ReplayScanSource.
+ * File format: magic number, version, number of faces; per face the number of samples followed by the samples
+ * (timestamp in microseconds as int, table angle as short, red, green and blue as float).
+ */
+public class ScanRecording {
+	
+	/**
+	 * Magic number at the beginning of every recording file ("CSRC").
+	 */
+	private static final int MAGIC = 0x43535243;
+	
+	/**
+	 * Version of file format.
+	 */
+	private static final int VERSION = 1;
+	
+	/**
+	 * Maximum number of faces in one recording.
+	 */
+	private static final int FACES = 6;
+	
+	/**
+	 * Timestamps of samples in microseconds after start of scan.
+	 */
+	private int[] time = new int[512];
+	
+	/**
+	 * Table angles at which the samples were taken.
+	 */
+	private short[] tacho = new short[512];
+	
+	/**
+	 * RGB-values of samples. Values of sample i start at index i * 3.
+	 */
+	private float[] rgb = new float[512 * 3];
+	
+	/**
+	 * Index of first sample of each face. faceStart[faces] is the number of samples.
+	 */
+	private int[] faceStart = new int[FACES + 1];
+	
+	/**
+	 * Number of faces in recording.
+	 */
+	private int faces = 0;
+	
+	/**
+	 * Number of samples in recording.
+	 */
+	private int size = 0;
+	
+	/**
+	 * Removes all samples, so that the object can be used for the next scan.
+	 */
+	public void reset() {
+		faces = 0;
+		size = 0;
+		faceStart[0] = 0;
+	}
+	
+	/**
+	 * Starts recording of next face. Following samples belong to this face.
+	 */
+	public void startFace() {
+		if (faces == FACES) {return;}
+		faceStart[faces] = size;
+		faces++;
+		faceStart[faces] = size;
+	}
+	
+	/**
+	 * Adds sample to current face.
+	 * @param timestamp Time in microseconds after start of scan.
+	 * @param angle Table angle at which the sample was taken.
+	 * @param red Red value.
+	 * @param green Green value.
+	 * @param blue Blue value.
+	 */
+	public void add(int timestamp, int angle, float red, float green, float blue) {
+		if (size == time.length) {grow();}
+		time[size] = timestamp;
+		tacho[size] = (short) angle;
+		rgb[size * 3] = red;
+		rgb[size * 3 + 1] = green;
+		rgb[size * 3 + 2] = blue;
+		size++;
+		faceStart[faces] = size;
+	}
+	
+	/**
+	 * Doubles the capacity of the sample arrays.
+	 */
+	private void grow() {
+		int[] newTime = new int[time.length * 2];
+		short[] newTacho = new short[tacho.length * 2];
+		float[] newRgb = new float[rgb.length * 2];
+		System.arraycopy(time, 0, newTime, 0, size);
+		System.arraycopy(tacho, 0, newTacho, 0, size);
+		System.arraycopy(rgb, 0, newRgb, 0, size * 3);
+		time = newTime;
+		tacho = newTacho;
+		rgb = newRgb;
+	}
+	
+	/**
+	 * Returns number of recorded faces.
+	 * @return Number of faces.
+	 */
+	public int getFaces() {return faces;}
+	
+	/**
+	 * Returns index of first sample of given face.
+	 * @param face Number of face.
+	 * @return Index of sample.
+	 */
+	public int faceStart(int face) {
+		return (face < faces) ? faceStart[face] : size;
+	}
+	
+	/**
+	 * Returns index after last sample of given face.
+	 * @param face Number of face.
+	 * @return Index of sample.
+	 */
+	public int faceEnd(int face) {
+		return (face < faces) ? faceStart[face + 1] : size;
+	}
+	
+	/**
+	 * Returns timestamp of sample.
+	 * @param i Index of sample.
+	 * @return Time in microseconds after start of scan.
+	 */
+	public int getTime(int i) {return time[i];}
+	
+	/**
+	 * Returns table angle of sample.
+	 * @param i Index of sample.
+	 * @return Table angle relative to start of face scan.
+	 */
+	public int getTacho(int i) {return tacho[i];}
+	
+	/**
+	 * Returns one color value of sample.
+	 * @param i Index of sample.
+	 * @param channel Color channel (0: red, 1: green, 2: blue).
+	 * @return Color value.
+	 */
+	public float getValue(int i, int channel) {return rgb[i * 3 + channel];}
+	
+	/**
+	 * Writes recording to binary file.
+	 * @param fileName Name of the file.
+	 * @throws IOException if file can't be written.
+	 */
+	public void save(String fileName) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte(faces);
+			for (int f = 0; f < faces; f++) {
+				out.writeInt(faceStart[f + 1] - faceStart[f]);
+				for (int i = faceStart[f]; i < faceStart[f + 1]; i++) {
+					out.writeInt(time[i]);
+					out.writeShort(tacho[i]);
+					out.writeFloat(rgb[i * 3]);
+					out.writeFloat(rgb[i * 3 + 1]);
+					out.writeFloat(rgb[i * 3 + 2]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads recording from binary file.
+	 * @param fileName Name of the file.
+	 * @return ScanRecording object
+	 * @throws IOException if file can't be read or is no recording file.
+	 */
+	public static ScanRecording load(String fileName) throws IOException {
+		ScanRecording recording = new ScanRecording();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+		try {
+			if (in.readInt() != MAGIC || in.readByte() != VERSION) {throw new IOException(fileName + " is no scan recording");}
+			int faces = in.readByte();
+			for (int f = 0; f < faces; f++) {
+				recording.startFace();
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					int timestamp = in.readInt();
+					int angle = in.readShort();
+					recording.add(timestamp, angle, in.readFloat(), in.readFloat(), in.readFloat());
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return recording;
+	}
+	
+	/**
+	 * Returns first file name of the form prefix + number that doesn't exist yet.
+	 * Used to build a collection of recordings without overwriting older ones.
+	 * @param prefix Beginning of file name.
+	 * @return File name.
+	 */
+	public static String nextFileName(String prefix) {
+		int i = 0;
+		while (new File(prefix + i).exists()) {i++;}
+		return prefix + i;
+	}
+}
@@ -0,0 +1,131 @@
+package solver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import enums.ColorsEnum;
+
+/**
+ * Desktop tool that replays recorded scans through the classification and placement logic of CubeScanner without any hardware.
+ * Used to measure accuracy and speed of color recognition on a collection of real scans.
+ * Usage: ScanReplay [-repeat n] [-table colortable] [-learn] recording...
+ * With -learn, reference colors are learned once per recording from scans that CubeValidator accepts (and that match the expected colors,
+ * if given), like from a scan that is confirmed by a solve on the robot. Profile and table files are written after each recording.
+ * If a file recording.expected exists, it has to contain the 48 correct colors (faces U, D, L, F, R, B, elements 0...7 each)
+ * and the recognized colors are compared with it.
+ */
+public class ScanReplay {
+	
+	/**
+	 * Reads expected colors of a recording. Whitespace and a byte order mark are skipped, letters may be lower case.
+	 * @param fileName Name of the file that contains the expected colors.
+	 * @return Array of 48 colors, null if file doesn't exist.
+	 * @throws IOException if file can't be read or contains a character that isn't a color.
+	 */
+	private static ColorsEnum[] readExpected(String fileName) throws IOException {
+		if (!new File(fileName).exists()) return null;
+		ColorsEnum[] expected = new ColorsEnum[ScanResult.ELEMENTS];
+		BufferedReader reader = new BufferedReader(new FileReader(fileName));
+		int i = 0;
+		try {
+			int c;
+			while ((c = reader.read()) != -1 && i < expected.length) {
+				if (Character.isWhitespace(c) || c == '\uFEFF') continue;
+				ColorsEnum color = null;
+				for (ColorsEnum value : ColorsEnum.values()) {
+					if (value != ColorsEnum.N && value.name().charAt(0) == Character.toUpperCase(c)) color = value;
+				}
+				if (color == null) throw new IOException("invalid color '" + (char) c + "' at element " + i + " of " + fileName);
+				expected[i++] = color;
+			}
+		} finally {
+			reader.close();
+		}
+		return (i == expected.length) ? expected : null;
+	}
+	
+	/**
+	 * Replays all given recordings and prints results.
+	 * @param args Optional "-repeat n", "-table colortable" and "-learn" followed by names of recording files.
+	 */
+	public static void main(String[] args) {
+		int repeat = 1;
+		ColorTable colorTable = null;
+		boolean learn = false;
+		int first = 0;
+		while (args.length > first + 1 && args[first].startsWith("-")) {
+			if (args[first].equals("-learn")) {
+				learn = true;
+				first++;
+				continue;
+			}
+			if (args[first].equals("-repeat")) {repeat = Integer.parseInt(args[first + 1]);}
+			else if (args[first].equals("-table")) {
+				try {
+					colorTable = ColorTable.load(args[first + 1]);
+				} catch (IOException e) {
+					System.out.println(args[first + 1] + ": " + e.getMessage());
+					return;
+				}
+			}
+			first += 2;
+		}
+		
+		RubiksCube cube = new RubiksCube();
+		ScanResult result = new ScanResult();
+		int scans = 0, intact = 0, compared = 0, correct = 0;
+		long totalTime = 0;
+		
+		for (int f = first; f < args.length; f++) {
+			ScanRecording recording;
+			ColorsEnum[] expected;
+			try {
+				recording = ScanRecording.load(args[f]);
+				expected = readExpected(args[f] + ".expected");
+			} catch (IOException e) {
+				System.out.println(args[f] + ": " + e.getMessage());
+				continue;
+			}
+			CubeScanner scanner = new CubeScanner(new ReplayScanSource(recording));
+			scanner.setWriteDebugFile(false);
+			scanner.setLearnColors(learn);
+			if (colorTable != null) {scanner.setColorTable(colorTable);}
+			
+			long start = System.nanoTime();
+			for (int r = 0; r < repeat; r++) {
+				cube.resetNull();
+				scanner.scanCube(cube, result);
+			}
+			long time = (System.nanoTime() - start) / repeat;
+			
+			scans++;
+			totalTime += time;
+			boolean integrity = cube.completeIntegrity();
+			if (integrity) intact++;
+			String line = args[f] + ": integrity " + integrity + ", " + time / 1000 + " us";
+			int hits = 0;
+			if (expected != null) {
+				for (int i = 0; i < ScanResult.ELEMENTS; i++) {
+					if (cube.elements[i / 8][i % 8] == expected[i]) hits++;
+				}
+				compared += ScanResult.ELEMENTS;
+				correct += hits;
+				line += ", " + hits + "/" + ScanResult.ELEMENTS + " correct";
+			}
+			System.out.println(line);
+			if (CubeValidator.check(cube) == null && (expected == null || hits == ScanResult.ELEMENTS)) {scanner.confirmScan();}
+			scanner.close();
+		}
+		
+		if (scans == 0) {
+			System.out.println("Usage: ScanReplay [-repeat n] [-table colortable] [-learn] recording...");
+			return;
+		}
+		System.out.println("Scans: " + scans + ", integrity: " + intact + "/" + scans + ", mean time: " + totalTime / scans / 1000 + " us");
+		if (compared > 0) {
+			System.out.println("Element accuracy: " + (100.0 * correct / compared) + " % (" + correct + "/" + compared + ")");
+		}
+	}
+}
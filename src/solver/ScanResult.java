@@ -0,0 +1,161 @@
+package solver;
+
+import enums.ColorsEnum;
+
+/**
+ * Holds the sensor data of one complete cube scan.
+ * Raw samples and estimated RGB-values of all 48 scanned elements are kept in flat, preallocated float arrays,
+ * so one object can be reused for every scan without allocating memory.
+ * Elements are addressed by their position in the RubiksCube elements array (face * 8 + element),
+ * i.e. by the place where the scanned element is located after the scan has finished.
+ */
+public class ScanResult {
+	
+	/**
+	 * Number of scanned elements (8 elements on 6 faces).
+	 */
+	public static final int ELEMENTS = 48;
+	
+	/**
+	 * Maximum number of raw samples that are saved per element.
+	 */
+	public static final int SAMPLES = 7;
+	
+	/**
+	 * Raw RGB-samples of all elements. Sample s of element p starts at index (p * SAMPLES + s) * 3.
+	 */
+	final float[] raw = new float[ELEMENTS * SAMPLES * 3];
+	
+	/**
+	 * Estimated RGB-values of all elements (median of the raw samples). Value of element p starts at index p * 3.
+	 */
+	final float[] estimate = new float[ELEMENTS * 3];
+	
+	/**
+	 * Number of raw samples that were taken for each element.
+	 */
+	final int[] sampleCount = new int[ELEMENTS];
+	
+	/**
+	 * Recognized color of each element.
+	 */
+	final ColorsEnum[] colors = new ColorsEnum[ELEMENTS];
+	
+	/**
+	 * Buffer used to sort the samples of one color channel while calculating the median.
+	 */
+	private final float[] sortBuffer = new float[SAMPLES];
+	
+	/**
+	 * Constructor that initializes an empty scan result.
+	 */
+	public ScanResult() {
+		reset();
+	}
+	
+	/**
+	 * Clears all values, so that the object can be used for the next scan.
+	 */
+	public void reset() {
+		for (int i = 0; i < raw.length; i++) {raw[i] = 0;}
+		for (int i = 0; i < estimate.length; i++) {estimate[i] = 0;}
+		for (int i = 0; i < ELEMENTS; i++) {
+			sampleCount[i] = 0;
+			colors[i] = ColorsEnum.N;
+		}
+	}
+	
+	/**
+	 * Copies all values of this scan to another ScanResult object.
+	 * @param target ScanResult object to copy values to.
+	 */
+	public void copyTo(ScanResult target) {
+		System.arraycopy(raw, 0, target.raw, 0, raw.length);
+		System.arraycopy(estimate, 0, target.estimate, 0, estimate.length);
+		System.arraycopy(sampleCount, 0, target.sampleCount, 0, ELEMENTS);
+		System.arraycopy(colors, 0, target.colors, 0, ELEMENTS);
+	}
+	
+	/**
+	 * Returns index of the first value of given raw sample in raw-array.
+	 * @param position Position of element (face * 8 + element).
+	 * @param sample Number of sample (0...SAMPLES-1).
+	 * @return Index in raw-array.
+	 */
+	public static int rawIndex(int position, int sample) {
+		return (position * SAMPLES + sample) * 3;
+	}
+	
+	/**
+	 * Returns index of the first value of given element's estimated RGB-value in estimate-array.
+	 * @param position Position of element (face * 8 + element).
+	 * @return Index in estimate-array.
+	 */
+	public static int estimateIndex(int position) {
+		return position * 3;
+	}
+	
+	/**
+	 * Calculates the median of all raw samples of an element for every color channel and writes it to estimate-array.
+	 * Unlike the mean value, the median is not affected by single samples that were taken on the border of an element.
+	 * @param position Position of element (face * 8 + element).
+	 */
+	void computeMedian(int position) {
+		int count = sampleCount[position];
+		for (int c = 0; c < 3; c++) {
+			for (int s = 0; s < count; s++) {
+				float value = raw[rawIndex(position, s) + c];
+				int k = s;
+				while (k > 0 && sortBuffer[k - 1] > value) {
+					sortBuffer[k] = sortBuffer[k - 1];
+					k--;
+				}
+				sortBuffer[k] = value;
+			}
+			float median;
+			if (count == 0) median = 0;
+			else if (count % 2 == 1) median = sortBuffer[count / 2];
+			else median = (sortBuffer[count / 2 - 1] + sortBuffer[count / 2]) / 2;
+			estimate[estimateIndex(position) + c] = median;
+		}
+	}
+	
+	/**
+	 * Returns one value of a raw sample.
+	 * @param position Position of element (face * 8 + element).
+	 * @param sample Number of sample.
+	 * @param channel Color channel (0: red, 1: green, 2: blue).
+	 * @return Raw value.
+	 */
+	public float getRaw(int position, int sample, int channel) {
+		return raw[rawIndex(position, sample) + channel];
+	}
+	
+	/**
+	 * Returns one value of an element's estimated RGB-value.
+	 * @param position Position of element (face * 8 + element).
+	 * @param channel Color channel (0: red, 1: green, 2: blue).
+	 * @return Estimated value.
+	 */
+	public float getEstimate(int position, int channel) {
+		return estimate[estimateIndex(position) + channel];
+	}
+	
+	/**
+	 * Returns number of raw samples that were taken for an element.
+	 * @param position Position of element (face * 8 + element).
+	 * @return Number of samples.
+	 */
+	public int getSampleCount(int position) {
+		return sampleCount[position];
+	}
+	
+	/**
+	 * Returns recognized color of an element.
+	 * @param position Position of element (face * 8 + element).
+	 * @return ColorsEnum object
+	 */
+	public ColorsEnum getColor(int position) {
+		return colors[position];
+	}
+}
@@ -0,0 +1,37 @@
+package solver;
+
+import enums.AllMoves;
+
+/**
+ * Source of the color samples that CubeScanner uses to scan the cube.
+ * The scanning process (which samples are taken at which table angle, how they are classified and where they are placed)
+ * is implemented in CubeScanner. Implementations of this interface either read the EV3-ColorSensor while the table turns
+ * or replay a recorded scan without any hardware.
+ */
+interface ScanSource {
+	
+	/**
+	 * Called once before the first face of a scan is scanned.
+	 */
+	void startScan();
+	
+	/**
+	 * Starts the rotation of the table that is used to scan all elements of the top face.
+	 */
+	void startFace();
+	
+	/**
+	 * Waits until the table reached the given angle and fetches one RGB-sample.
+	 * @param angle Table angle relative to the start of the face scan.
+	 * @param sample Array that the RGB-values are written to.
+	 * @param offset Index of red value in sample-array.
+	 * @return Table angle at which the sample was taken.
+	 */
+	int fetchSample(int angle, float[] sample, int offset);
+	
+	/**
+	 * Finishes the scan of the top face and moves the next face to the top.
+	 * @param maneuver Maneuver that moves the next face to the top, null after the last face.
+	 */
+	void finishFace(AllMoves[] maneuver);
+}
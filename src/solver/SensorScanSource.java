@@ -0,0 +1,71 @@
+package solver;
+
+import enums.AllMoves;
+import lejos.hardware.port.SensorPort;
+import lejos.hardware.sensor.EV3ColorSensor;
+import lejos.robotics.SampleProvider;
+
+/**
+ * ScanSource that takes samples with the EV3-ColorSensor while the table is turned by the MotorController.
+ * Every sample can be written to a ScanRecording, so that the scan can be replayed later without hardware.
+ */
+class SensorScanSource implements ScanSource {
+	
+	/**
+	 * MotorController object to control motors during scanning process.
+	 */
+	private MotorController scannerMotors;
+	
+	/**
+	 * SampleProvider that fetches raw RBG-values.
+	 */
+	private SampleProvider rawRGB;
+	
+	/**
+	 * Recording that every sample is written to. Null if scans are not recorded.
+	 */
+	private ScanRecording recording;
+	
+	/**
+	 * Time (System.nanoTime()) at which the current scan was started.
+	 */
+	private long startTime = 0;
+	
+	/**
+	 * Constructor initializes used variables.
+	 * @param motors MotorController object to control motors during scanning process
+	 * @param recording ScanRecording object that samples are written to, null if scans are not recorded.
+	 */
+	SensorScanSource(MotorController motors, ScanRecording recording) {
+		EV3ColorSensor sensor = new EV3ColorSensor(SensorPort.S1);
+		rawRGB = sensor.getRGBMode();
+		scannerMotors = motors;
+		this.recording = recording;
+	}
+	
+	public void startScan() {
+		startTime = System.nanoTime();
+		if (recording != null) {recording.reset();}
+	}
+	
+	public void startFace() {
+		if (recording != null) {recording.startFace();}
+		scannerMotors.tableTurnScan();
+	}
+	
+	public int fetchSample(int angle, float[] sample, int offset) {
+		int tacho;
+		while ((tacho = scannerMotors.getTableTachoCount()) < angle) {}
+		rawRGB.fetchSample(sample, offset);
+		if (recording != null) {
+			recording.add((int) ((System.nanoTime() - startTime) / 1000), tacho, sample[offset], sample[offset + 1], sample[offset + 2]);
+		}
+		return tacho;
+	}
+	
+	public void finishFace(AllMoves[] maneuver) {
+		scannerMotors.waitCompleteTable();
+		scannerMotors.reallignTable();
+		if (maneuver != null) {scannerMotors.applyMoves(maneuver, true);}
+	}
+}
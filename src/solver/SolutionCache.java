@@ -0,0 +1,332 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import enums.AllMoves;
+
+/**
+ * Remembers the best known solution of every solved scramble, so repeated scrambles (demonstrations, rescans) are solved immediately.
+ * Scrambles are identified by a canonical key: the smallest key (see StateKey) of the 8 images of the cube under RobotSymmetry.
+ * The same scramble in another orientation or reflected gets the same key; the stored solution belongs to that image and is
+ * transformed back when it is read. Recoloring beyond this isn't needed, because the centers fix the color scheme.
+ * Recently used solutions are kept in memory (least recently used are dropped first). All solutions are appended to a file,
+ * an index in memory tells where the latest solution of every key starts. A better solution is appended as new record,
+ * so the file is never rewritten. Every solution read from the cache is checked on a copy of the cube before it is used.
+ * A file that isn't a cache file or can't be read is left alone and the solutions are only kept in memory.
+ */
+public class SolutionCache {
+
+	/**
+	 * Name of the cache file.
+	 */
+	protected static final String FILENAME = "solutioncache";
+
+	/**
+	 * Magic number at the beginning of the cache file ("SLVC").
+	 */
+	private static final int MAGIC = 0x534C5643;
+
+	/**
+	 * Number of solutions kept in memory.
+	 */
+	private static final int CAPACITY = 256;
+
+	/**
+	 * Shared instance, created by getInstance().
+	 */
+	private static SolutionCache instance = null;
+
+	/**
+	 * Recently used solutions (of the canonical image), in order of use.
+	 */
+	private final Map<StateKey, AllMoves[]> recent = new LinkedHashMap<StateKey, AllMoves[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<StateKey, AllMoves[]> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/**
+	 * Position of the latest record of every key in the cache file.
+	 */
+	private final Map<StateKey, Long> index = new HashMap<>();
+
+	/**
+	 * Estimated robot time of the latest solution of every key (see MoveCost).
+	 */
+	private final Map<StateKey, Integer> costs = new HashMap<>();
+
+	/**
+	 * Cache file, null if solutions are only kept in memory.
+	 */
+	private File file;
+
+	/**
+	 * Constructor that reads the index of a cache file, the file is created if it doesn't exist.
+	 * If the file can't be read or created, solutions are only kept in memory.
+	 * @param fileName Name of the cache file, null to keep solutions only in memory.
+	 */
+	protected SolutionCache(String fileName) {
+		file = (fileName == null) ? null : new File(fileName);
+		if (file == null) return;
+		try {
+			if (file.exists()) {readIndex();}
+			else {
+				DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+				try {
+					out.writeInt(MAGIC);
+				} finally {
+					out.close();
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			file = null;
+			index.clear();
+			costs.clear();
+		}
+	}
+
+	/**
+	 * Returns the shared SolutionCache that uses the cache file FILENAME.
+	 * @return SolutionCache object.
+	 */
+	protected static synchronized SolutionCache getInstance() {
+		if (instance == null) {instance = new SolutionCache(FILENAME);}
+		return instance;
+	}
+
+	/**
+	 * Reads all records of the cache file and remembers position and cost of the latest record of every key.
+	 * A record that was cut off (e.g. the brick was switched off while writing) or contains a byte that is no move is removed
+	 * together with all records after it, so new records can be appended.
+	 * @throws IOException if file can't be read or is no cache file.
+	 */
+	private void readIndex() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		long position = 4;
+		try {
+			if (in.readInt() != MAGIC) throw new IOException("no solution cache: " + file);
+			while (true) {
+				StateKey key = new StateKey(in.readLong(), in.readLong());
+				AllMoves[] moves = new AllMoves[in.readUnsignedShort()];
+				for (int i = 0; i < moves.length; i++) {moves[i] = move(in.readUnsignedByte());}
+				if (Arrays.asList(moves).contains(null)) break;
+				index.put(key, position);
+				costs.put(key, MoveCost.time(moves, 0, moves.length));
+				position += 18 + moves.length;
+			}
+		} catch (EOFException e) {
+			// end of file
+		} finally {
+			in.close();
+		}
+		if (file.length() > position) {
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			try {
+				out.setLength(position);
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns move of a byte of the cache file.
+	 * @param value Byte of the cache file (ordinal of AllMoves).
+	 * @return Move, null if the byte is no ordinal of AllMoves.
+	 */
+	private static AllMoves move(int value) {
+		return (value < AllMoves.values().length) ? AllMoves.values()[value] : null;
+	}
+
+	/**
+	 * Reads the record at given position of the cache file.
+	 * @param position Position of the record.
+	 * @return Moves of the record.
+	 * @throws IOException if file can't be read or the record is corrupt.
+	 */
+	private AllMoves[] readRecord(long position) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(position + 16);
+			AllMoves[] moves = new AllMoves[in.readUnsignedShort()];
+			for (int i = 0; i < moves.length; i++) {
+				moves[i] = move(in.readUnsignedByte());
+				if (moves[i] == null) throw new IOException("corrupt record in " + file + " at " + position);
+			}
+			return moves;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Appends a record to the cache file.
+	 * @param key Canonical key.
+	 * @param moves Solution of the canonical image.
+	 * @return Position of the record.
+	 * @throws IOException if file can't be written.
+	 */
+	private long appendRecord(StateKey key, AllMoves[] moves) throws IOException {
+		long position = file.length();
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true));
+		try {
+			out.writeLong(key.corners);
+			out.writeLong(key.edges);
+			out.writeShort(moves.length);
+			for (AllMoves move : moves) {out.writeByte(move.ordinal());}
+		} finally {
+			out.close();
+		}
+		return position;
+	}
+
+	/**
+	 * Returns the symmetry whose image of the cube-representation has the smallest key.
+	 * @param cube Cube-representation.
+	 * @param image RubiksCube object the canonical image is written to.
+	 * @return Number of symmetry (see RobotSymmetry.transform()), -1 if the cube-representation is invalid.
+	 */
+	private static int canonical(RubiksCube cube, RubiksCube image) {
+		CubeState state = new CubeState();
+		StateKey best = null;
+		int symmetry = -1;
+		for (int s = 0; s < RobotSymmetry.COUNT; s++) {
+			RobotSymmetry.transform(cube, s, image);
+			if (!state.fromCube(image)) return -1;
+			StateKey key = new StateKey(state);
+			if (best == null || key.compareTo(best) < 0) {
+				best = key;
+				symmetry = s;
+			}
+		}
+		RobotSymmetry.transform(cube, symmetry, image);
+		return symmetry;
+	}
+
+	/**
+	 * Applies moves to a copy of a cube-representation and returns the shortened solution if it solves the cube.
+	 * @param cube Cube-representation to start with.
+	 * @param prefix Moves applied first.
+	 * @param moves Moves applied after the prefix.
+	 * @param mirrored True if all moves are reflected.
+	 * @return Shortened solution, null if the cube isn't solved.
+	 */
+	private static AllMoves[] replay(RubiksCube cube, AllMoves[] prefix, AllMoves[] moves, boolean mirrored) {
+		RubiksCube copy = new RubiksCube();
+		copy.copyFrom(cube);
+		copy.solutionIndex = 0;
+		copy.setRecording(true);
+		for (AllMoves move : prefix) {copy.applyMoves(new AllMoves[] {mirrored ? RobotSymmetry.mirror(move) : move});}
+		for (AllMoves move : moves) {copy.applyMoves(new AllMoves[] {mirrored ? RobotSymmetry.mirror(move) : move});}
+		copy.shortenSolution();
+		if (!copy.isSolved()) return null;
+		AllMoves[] solution = new AllMoves[copy.solutionIndex];
+		System.arraycopy(copy.solution, 0, solution, 0, solution.length);
+		return solution;
+	}
+
+	/**
+	 * Returns a sequence of one rotation repeated.
+	 * @param move Rotation.
+	 * @param count Number of rotations.
+	 * @return Array of moves.
+	 */
+	private static AllMoves[] rotations(AllMoves move, int count) {
+		AllMoves[] moves = new AllMoves[count];
+		for (int i = 0; i < count; i++) {moves[i] = move;}
+		return moves;
+	}
+
+	/**
+	 * Returns the best known solution of a cube-representation.
+	 * @param cube Cube-representation (is only read).
+	 * @return Solution, null if the scramble isn't in the cache.
+	 */
+	protected synchronized AllMoves[] get(RubiksCube cube) {
+		RubiksCube image = new RubiksCube();
+		int symmetry = canonical(cube, image);
+		if (symmetry < 0) return null;
+		CubeState state = new CubeState();
+		state.fromCube(image);
+		StateKey key = new StateKey(state);
+		AllMoves[] moves = recent.get(key);
+		if (moves == null && index.containsKey(key)) {
+			try {
+				moves = readRecord(index.get(key));
+				recent.put(key, moves);
+			} catch (IOException e) {e.printStackTrace();}
+		}
+		if (moves == null) return null;
+		return replay(cube, rotations(AllMoves.R, symmetry % 4), moves, symmetry >= RobotSymmetry.COUNT / 2);
+	}
+
+	/**
+	 * Stores a solution of a cube-representation if the scramble isn't in the cache yet or the solution is cheaper (see MoveCost)
+	 * than the known one.
+	 * @param cube Cube-representation before the solution is applied (is only read).
+	 * @param moves Array that contains the solution.
+	 * @param from First move of the solution.
+	 * @param to First move after the solution.
+	 * @return True if the solution was stored.
+	 */
+	protected synchronized boolean put(RubiksCube cube, AllMoves[] moves, int from, int to) {
+		RubiksCube image = new RubiksCube();
+		int symmetry = canonical(cube, image);
+		if (symmetry < 0) return false;
+		CubeState state = new CubeState();
+		state.fromCube(image);
+		StateKey key = new StateKey(state);
+		AllMoves[] solution = new AllMoves[to - from];
+		System.arraycopy(moves, from, solution, 0, solution.length);
+		boolean mirrored = symmetry >= RobotSymmetry.COUNT / 2;
+		if (mirrored) {
+			for (int i = 0; i < solution.length; i++) {solution[i] = RobotSymmetry.mirror(solution[i]);}
+		}
+		solution = replay(image, rotations(AllMoves.RI, symmetry % 4), solution, false);
+		if (solution == null) return false;
+		int cost = MoveCost.time(solution, 0, solution.length);
+		if (costs.containsKey(key) && costs.get(key) <= cost && (file != null || recent.containsKey(key))) return false;
+		if (file != null) {
+			try {
+				index.put(key, appendRecord(key, solution));
+			} catch (IOException e) {e.printStackTrace();}
+		}
+		costs.put(key, cost);
+		recent.put(key, solution);
+		return true;
+	}
+
+	/**
+	 * Applies the best known solution to a cube-representation (the solution is recorded like by CubeAlgorithm.solve()).
+	 * @param cube Internal representation of scanned Rubik's Cube.
+	 * @return Result with unknown stage lengths (0), null if the scramble isn't in the cache (cube is left unchanged then).
+	 */
+	protected SolveResult apply(RubiksCube cube) {
+		long start = System.nanoTime();
+		AllMoves[] moves = get(cube);
+		if (moves == null) return null;
+		int first = cube.solutionIndex;
+		cube.setRecording(true);
+		cube.applyMoves(moves);
+		cube.shortenSolution();
+		cube.setRecording(false);
+		return new SolveResult(cube.isSolved(), new int[CubeAlgorithm.STAGES.length], cube.solutionIndex, System.nanoTime() - start,
+				MoveCost.time(cube.solution, first, cube.solutionIndex));
+	}
+}
@@ -0,0 +1,105 @@
+package solver;
+
+/**
+ * Result of solving one cube-representation with CubeAlgorithm.solve().
+ * The solution itself stays in the solution array of the cube; this object tells whether it is valid and how it was found.
+ */
+public class SolveResult {
+	
+	/**
+	 * True if the cube-representation was solved by the solution.
+	 */
+	private final boolean solved;
+	
+	/**
+	 * Number of moves each stage added to the shortened solution.
+	 */
+	private final int[] stageLengths;
+	
+	/**
+	 * Number of moves removed from the solution after the last stage (RotationPropagation and PeepholeOptimizer).
+	 */
+	private final int saved;
+	
+	/**
+	 * Length of the complete solution.
+	 */
+	private final int length;
+	
+	/**
+	 * Time needed to search the solution in nanoseconds.
+	 */
+	private final long searchTime;
+	
+	/**
+	 * Estimated time the robot needs to apply the solution in milliseconds (see MoveCost).
+	 */
+	private final int applyTime;
+	
+	/**
+	 * Constructor that sets all values of the result.
+	 * @param solved True if cube-representation was solved.
+	 * @param stageLengths Number of moves each stage added.
+	 * @param length Length of complete solution.
+	 * @param searchTime Time needed for search in nanoseconds.
+	 * @param applyTime Estimated time the robot needs to apply the solution in milliseconds.
+	 */
+	protected SolveResult(boolean solved, int[] stageLengths, int length, long searchTime, int applyTime) {
+		this(solved, stageLengths, 0, length, searchTime, applyTime);
+	}
+	
+	/**
+	 * Constructor that sets all values of the result, including the moves saved after the last stage.
+	 * @param solved True if cube-representation was solved.
+	 * @param stageLengths Number of moves each stage added.
+	 * @param saved Number of moves removed after the last stage.
+	 * @param length Length of complete solution.
+	 * @param searchTime Time needed for search in nanoseconds.
+	 * @param applyTime Estimated time the robot needs to apply the solution in milliseconds.
+	 */
+	protected SolveResult(boolean solved, int[] stageLengths, int saved, int length, long searchTime, int applyTime) {
+		this.solved = solved;
+		this.stageLengths = stageLengths;
+		this.saved = saved;
+		this.length = length;
+		this.searchTime = searchTime;
+		this.applyTime = applyTime;
+	}
+	
+	/**
+	 * Returns true if the cube-representation was solved. False means the scanned cube is in an unsolvable state.
+	 * @return boolean variable
+	 */
+	public boolean isSolved() {return solved;}
+	
+	/**
+	 * Returns number of moves that given stage added to the solution.
+	 * @param stage Number of stage (index in CubeAlgorithm.STAGES).
+	 * @return Number of moves.
+	 */
+	public int getStageLength(int stage) {return stageLengths[stage];}
+	
+	/**
+	 * Returns number of moves removed from the solution after the last stage (RotationPropagation and PeepholeOptimizer).
+	 * @return Number of moves.
+	 */
+	public int getSaved() {return saved;}
+	
+	/**
+	 * Returns length of the complete solution.
+	 * @return Number of moves.
+	 */
+	public int getLength() {return length;}
+	
+	/**
+	 * Returns time needed to search the solution.
+	 * @return Time in nanoseconds.
+	 */
+	public long getSearchTime() {return searchTime;}
+	
+	/**
+	 * Returns estimated time the robot needs to apply the solution.
+	 * @return Time in milliseconds.
+	 */
+	public int getApplyTime() {return applyTime;}
+}
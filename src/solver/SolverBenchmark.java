@@ -0,0 +1,292 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import enums.AllMoves;
+
+/**
+ * Desktop tool that measures the cube model and the solving stages on a fixed set of scrambles.
+ * Every benchmark is warmed up first, then measured in several timed iterations. Results are printed as mean and
+ * standard deviation of nanoseconds per operation, so runs before and after a change can be compared directly.
+ * Usage: SolverBenchmark [-time ms] [-iterations n] [-scrambles n] [-seed n] [filter]
+ * Only benchmarks whose name contains filter are run.
+ * The stage benchmarks run the classic stages (without PairSolver and LastLayerTable). PairSolver and LastLayerTable,
+ * which replace several classic stages when they are switched on, are measured in benchmarks of their own.
+ */
+public class SolverBenchmark {
+
+	/**
+	 * Number of moves applied per operation in the applyMoves benchmarks.
+	 */
+	private final int MOVESPEROP = 16;
+
+	/**
+	 * One measured operation. Implementations return a value derived from their work, so the JIT can't drop it.
+	 */
+	private static abstract class Benchmark {
+
+		/**
+		 * Name that is printed and matched against the filter.
+		 */
+		private final String name;
+
+		/**
+		 * Constructor that sets name of benchmark.
+		 * @param name Name of benchmark.
+		 */
+		Benchmark(String name) {this.name = name;}
+
+		/**
+		 * Executes the measured operation once.
+		 * @param op Number of operation, used to cycle through the scramble set.
+		 * @return Any value that depends on the work done.
+		 */
+		abstract int run(int op);
+	}
+
+	/**
+	 * Consumes results of benchmarks.
+	 */
+	private static volatile int sink;
+
+	/**
+	 * Duration of warmup and of each measured iteration in milliseconds.
+	 */
+	private long time = 1000;
+
+	/**
+	 * Number of measured iterations per benchmark.
+	 */
+	private int iterations = 5;
+
+	/**
+	 * Cube-representations of the scramble set before each classic stage (snapshots[stage][scramble]), recording enabled and empty solution.
+	 */
+	private RubiksCube[][] snapshots;
+
+	/**
+	 * Unshortened move sequences recorded by each stage on each scramble, used as realistic input for shortenSolution.
+	 */
+	private AllMoves[][] rawSolutions;
+
+	/**
+	 * Registered benchmarks in order of execution.
+	 */
+	private List<Benchmark> benchmarks = new ArrayList<>();
+
+	/**
+	 * Constructor that generates the scramble set and registers all benchmarks.
+	 * @param scrambles Number of scrambles.
+	 * @param seed Seed of the scramble generator (same seed gives same scramble set).
+	 */
+	private SolverBenchmark(int scrambles, long seed) {
+		final CubeAlgorithm solver = new CubeAlgorithm();
+		solver.setPairSolving(false);
+		solver.setLastLayerTable(false);
+		SplitMixRandom random = new SplitMixRandom(seed);
+		CubeState state = new CubeState();
+		snapshots = new RubiksCube[CubeAlgorithm.STAGES.length][scrambles];
+		rawSolutions = new AllMoves[CubeAlgorithm.STAGES.length * scrambles][];
+
+		RubiksCube cube = new RubiksCube();
+		for (int k = 0; k < scrambles; k++) {
+			state.resetRandom(random);
+			state.toCube(cube);
+			cube.setRecording(true);
+			for (int s = 0; s < CubeAlgorithm.STAGES.length; s++) {
+				cube.solutionIndex = 0;
+				snapshots[s][k] = new RubiksCube();
+				snapshots[s][k].copyFrom(cube);
+				solver.applyStage(s, cube);
+				AllMoves[] raw = new AllMoves[cube.solutionIndex];
+				System.arraycopy(cube.solution, 0, raw, 0, raw.length);
+				rawSolutions[s * scrambles + k] = raw;
+			}
+			if (!cube.isSolved()) {
+				System.out.println("Warning: scramble " + k + " not solved");
+			}
+			cube.setRecording(false);
+		}
+
+		final RubiksCube work = new RubiksCube();
+		final RubiksCube[] scrambled = new RubiksCube[scrambles];
+		for (int k = 0; k < scrambles; k++) {
+			scrambled[k] = snapshots[0][k];
+		}
+
+		for (final AllMoves move : AllMoves.values()) {
+			if (move == AllMoves.N) continue;
+			final AllMoves[] moves = new AllMoves[MOVESPEROP];
+			for (int i = 0; i < MOVESPEROP; i++) {
+				moves[i] = move;
+			}
+			final RubiksCube moved = new RubiksCube();
+			moved.resetSolved();
+			benchmarks.add(new Benchmark("applyMoves." + move + " (x" + MOVESPEROP + ")") {
+				int run(int op) {
+					moved.applyMoves(moves);
+					return moved.elements[0][op & 7].ordinal();
+				}
+			});
+		}
+
+		benchmarks.add(new Benchmark("shortenSolution") {
+			int run(int op) {
+				AllMoves[] raw = rawSolutions[op % rawSolutions.length];
+				System.arraycopy(raw, 0, work.solution, 0, raw.length);
+				work.solutionIndex = raw.length;
+				work.shortenSolution();
+				return work.solutionIndex;
+			}
+		});
+
+		benchmarks.add(new Benchmark("completeIntegrity") {
+			int run(int op) {
+				return scrambled[op % scrambled.length].completeIntegrity() ? 1 : 0;
+			}
+		});
+
+		final RubiksCube solved = new RubiksCube();
+		solved.resetSolved();
+		benchmarks.add(new Benchmark("isSolved.solved") {
+			int run(int op) {
+				return solved.isSolved() ? 1 : 0;
+			}
+		});
+		benchmarks.add(new Benchmark("isSolved.scrambled") {
+			int run(int op) {
+				return scrambled[op % scrambled.length].isSolved() ? 1 : 0;
+			}
+		});
+
+		benchmarks.add(new Benchmark("copyFrom (baseline of stages)") {
+			int run(int op) {
+				work.copyFrom(scrambled[op % scrambled.length]);
+				return work.solutionIndex;
+			}
+		});
+
+		for (int s = 0; s < CubeAlgorithm.STAGES.length; s++) {
+			final int stage = s;
+			final RubiksCube[] before = snapshots[s];
+			benchmarks.add(new Benchmark("stage." + CubeAlgorithm.STAGES[s]) {
+				int run(int op) {
+					work.copyFrom(before[op % before.length]);
+					solver.applyStage(stage, work);
+					return work.solutionIndex;
+				}
+			});
+		}
+
+		// both replace the classic stages up to the end of their layer and start from the same snapshots
+		final CubeAlgorithm pairs = new CubeAlgorithm();
+		pairs.setLastLayerTable(false);
+		final RubiksCube[] beforePairs = snapshots[1];
+		benchmarks.add(new Benchmark("stage.pairs (PairSolver)") {
+			int run(int op) {
+				work.copyFrom(beforePairs[op % beforePairs.length]);
+				pairs.applyStage(1, work);
+				return work.solutionIndex;
+			}
+		});
+		if (LastLayerTable.getInstance() == null) {
+			System.out.println("Warning: no LastLayerTable, stage.lastLayer (LastLayerTable) is skipped");
+		}
+		else addTableBenchmark(work);
+	}
+
+	/**
+	 * Registers the benchmark of the last layer solved by LastLayerTable.
+	 * @param work Cube-representation the benchmark works on.
+	 */
+	private void addTableBenchmark(final RubiksCube work) {
+		final CubeAlgorithm table = new CubeAlgorithm();
+		table.setPairSolving(false);
+		final RubiksCube[] beforeTable = snapshots[3];
+		benchmarks.add(new Benchmark("stage.lastLayer (LastLayerTable)") {
+			int run(int op) {
+				work.copyFrom(beforeTable[op % beforeTable.length]);
+				table.applyStage(3, work);
+				return work.solutionIndex;
+			}
+		});
+	}
+
+	/**
+	 * Runs given benchmark for the configured time.
+	 * @param benchmark Benchmark to run.
+	 * @param duration Duration in milliseconds.
+	 * @return Nanoseconds per operation.
+	 */
+	private double measure(Benchmark benchmark, long duration) {
+		long end = System.nanoTime() + duration * 1000000L;
+		int ops = 0;
+		int result = 0;
+		long start = System.nanoTime();
+		long now;
+		do {
+			for (int i = 0; i < 64; i++) {
+				result += benchmark.run(ops++);
+			}
+			now = System.nanoTime();
+		} while (now < end);
+		sink = result;
+		return (double)(now - start) / ops;
+	}
+
+	/**
+	 * Runs all benchmarks that match filter and prints results.
+	 * @param filter Part of benchmark name, null runs all benchmarks.
+	 */
+	private void runAll(String filter) {
+		System.out.println(String.format("%-40s %12s %10s", "Benchmark", "ns/op", "+-"));
+		for (Benchmark benchmark : benchmarks) {
+			if (filter != null && !benchmark.name.contains(filter)) continue;
+			measure(benchmark, time);
+			double[] results = new double[iterations];
+			double mean = 0;
+			for (int i = 0; i < iterations; i++) {
+				results[i] = measure(benchmark, time);
+				mean += results[i];
+			}
+			mean /= iterations;
+			double variance = 0;
+			for (int i = 0; i < iterations; i++) {
+				variance += (results[i] - mean) * (results[i] - mean);
+			}
+			double deviation = (iterations > 1) ? Math.sqrt(variance / (iterations - 1)) : 0;
+			System.out.println(String.format("%-40s %12.1f %10.1f", benchmark.name, mean, deviation));
+		}
+	}
+
+	/**
+	 * Parses arguments and runs benchmarks.
+	 * @param args Optional "-time ms", "-iterations n", "-scrambles n", "-seed n" followed by an optional name filter.
+	 */
+	public static void main(String[] args) {
+		long time = 1000;
+		int iterations = 5;
+		int scrambles = 100;
+		long seed = 1;
+		String filter = null;
+		int i = 0;
+		while (i < args.length) {
+			if (args[i].startsWith("-") && i + 1 < args.length) {
+				if (args[i].equals("-time")) time = Long.parseLong(args[i + 1]);
+				else if (args[i].equals("-iterations")) iterations = Integer.parseInt(args[i + 1]);
+				else if (args[i].equals("-scrambles")) scrambles = Integer.parseInt(args[i + 1]);
+				else if (args[i].equals("-seed")) seed = Long.parseLong(args[i + 1]);
+				i += 2;
+			} else {
+				filter = args[i];
+				i++;
+			}
+		}
+
+		SolverBenchmark benchmark = new SolverBenchmark(scrambles, seed);
+		benchmark.time = time;
+		benchmark.iterations = iterations;
+		benchmark.runAll(filter);
+	}
+}
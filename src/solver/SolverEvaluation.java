@@ -0,0 +1,294 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Desktop tool that evaluates the solving algorithm on many random scrambles using all processor cores.
+ * Scrambles are uniformly distributed random states. They are split recursively over a fork-join pool, every worker solves its share
+ * on its own cube-representation. The random generator is split along with the range of scrambles, so results don't depend on the number of threads.
+ * Prints length distribution of each stage and of the complete solution, the estimated robot time, a histogram of solve times and the throughput.
+ * With "-orientations" every scramble is solved by OrientationSolver (all variants in the thread of the worker),
+ * with "-beam width" by BeamSolver (time budget per scramble set by "-budget ms").
+ * Usage: SolverEvaluation [-scrambles n] [-seed n] [-threads n] [-orientations] [-beam width [-budget ms]]
+ */
+public class SolverEvaluation {
+
+	/**
+	 * Number of scrambles a worker solves without splitting its range any further.
+	 */
+	private static final int THRESHOLD = 64;
+
+	/**
+	 * Number of columns (buckets) of printed histograms.
+	 */
+	private static final int BUCKETS = 10;
+
+	/**
+	 * Width of histogram bars in characters.
+	 */
+	private static final int BARWIDTH = 50;
+
+	/**
+	 * Solution length added by each stage (lengths[stage][scramble]), after shortening.
+	 */
+	private final int[][] lengths;
+
+	/**
+	 * Moves removed after the last stage of each scramble (see SolveResult.getSaved()).
+	 */
+	private final int[] saved;
+
+	/**
+	 * Final solution length of each scramble.
+	 */
+	private final int[] totals;
+
+	/**
+	 * Time needed to solve each scramble in nanoseconds (scrambling not included).
+	 */
+	private final long[] times;
+
+	/**
+	 * Estimated robot time of each solution in milliseconds.
+	 */
+	private final long[] applyTimes;
+
+	/**
+	 * True for every scramble that wasn't solved at the end.
+	 */
+	private final boolean[] failed;
+
+	/**
+	 * If true, scrambles are solved by OrientationSolver instead of CubeAlgorithm.
+	 */
+	private final boolean orientations;
+
+	/**
+	 * Width of BeamSolver, 0 if scrambles aren't solved by BeamSolver.
+	 */
+	private final int beamWidth;
+
+	/**
+	 * Time budget of BeamSolver per scramble in milliseconds.
+	 */
+	private final long budget;
+
+	/**
+	 * Solves a range of scrambles, splitting it in halves until it is small enough.
+	 */
+	private class Worker extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * First scramble of range.
+		 */
+		private final int from;
+
+		/**
+		 * First scramble after range.
+		 */
+		private final int to;
+
+		/**
+		 * Generator of the scrambles of this range.
+		 */
+		private final SplitMixRandom random;
+
+		/**
+		 * Constructor that sets range of scrambles.
+		 * @param from First scramble of range.
+		 * @param to First scramble after range.
+		 * @param random Generator of the scrambles of this range.
+		 */
+		Worker(int from, int to, SplitMixRandom random) {
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Worker(from, middle, random.split()), new Worker(middle, to, random.split()));
+				return;
+			}
+			RubiksCube cube = new RubiksCube();
+			CubeState state = new CubeState();
+			CubeAlgorithm solver = new CubeAlgorithm();
+			OrientationSolver orientationSolver = orientations ? new OrientationSolver(1) : null;
+			BeamSolver beamSolver = (beamWidth > 0) ? new BeamSolver(beamWidth, budget) : null;
+			for (int k = from; k < to; k++) {
+				state.resetRandom(random);
+				state.toCube(cube);
+				if (beamSolver != null) store(beamSolver.solve(cube), k);
+				else if (orientationSolver != null) store(orientationSolver.solve(cube), k);
+				else store(solver.solve(cube), k);
+			}
+		}
+	}
+
+	/**
+	 * Constructor that allocates result arrays.
+	 * @param scrambles Number of scrambles.
+	 * @param orientations True to solve scrambles by OrientationSolver.
+	 * @param beamWidth Width of BeamSolver, 0 to solve scrambles without BeamSolver.
+	 * @param budget Time budget of BeamSolver per scramble in milliseconds.
+	 */
+	private SolverEvaluation(int scrambles, boolean orientations, int beamWidth, long budget) {
+		this.orientations = orientations;
+		this.beamWidth = beamWidth;
+		this.budget = budget;
+		lengths = new int[CubeAlgorithm.STAGES.length][scrambles];
+		saved = new int[scrambles];
+		totals = new int[scrambles];
+		times = new long[scrambles];
+		applyTimes = new long[scrambles];
+		failed = new boolean[scrambles];
+	}
+
+	/**
+	 * Stores the result of scramble number k.
+	 * @param result Result of the solver.
+	 * @param k Number of scramble.
+	 */
+	private void store(SolveResult result, int k) {
+		for (int s = 0; s < CubeAlgorithm.STAGES.length; s++) {
+			lengths[s][k] = result.getStageLength(s);
+		}
+		saved[k] = result.getSaved();
+		times[k] = result.getSearchTime();
+		applyTimes[k] = result.getApplyTime();
+		totals[k] = result.getLength();
+		failed[k] = !result.isSolved();
+	}
+
+	/**
+	 * Returns value at given percentile of sorted values (nearest rank).
+	 * @param sorted Sorted values.
+	 * @param percent Percentile between 0 and 100.
+	 * @return Value at percentile.
+	 */
+	private static long percentile(long[] sorted, double percent) {
+		int rank = (int) Math.ceil(percent / 100 * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+
+	/**
+	 * Prints mean, percentiles and extremes of given values in one line.
+	 * @param name Name printed in front of line.
+	 * @param values Values (are sorted by this method).
+	 * @param unit Divisor for printed values (e.g. 1000 to print microseconds from nanoseconds).
+	 */
+	private static void printDistribution(String name, long[] values, double unit) {
+		Arrays.sort(values);
+		double mean = 0;
+		for (long value : values) mean += value;
+		mean /= values.length;
+		System.out.println(String.format("%-20s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f", name, mean / unit,
+				values[0] / unit, percentile(values, 50) / unit, percentile(values, 90) / unit,
+				percentile(values, 99) / unit, percentile(values, 99.9) / unit, values[values.length - 1] / unit));
+	}
+
+	/**
+	 * Prints histogram of given sorted values with equally wide buckets between minimum and 99.9th percentile.
+	 * Values above are counted in the last bucket.
+	 * @param title Title of histogram.
+	 * @param sorted Sorted values.
+	 * @param unit Divisor for printed bucket limits.
+	 * @param unitName Name of unit for printed bucket limits.
+	 */
+	private static void printHistogram(String title, long[] sorted, double unit, String unitName) {
+		long min = sorted[0];
+		long max = Math.max(percentile(sorted, 99.9), min + 1);
+		double width = (double)(max - min) / BUCKETS;
+		int[] counts = new int[BUCKETS];
+		int highest = 0;
+		for (long value : sorted) {
+			int bucket = Math.min(BUCKETS - 1, (int)((value - min) / width));
+			counts[bucket]++;
+			highest = Math.max(highest, counts[bucket]);
+		}
+		System.out.println(title);
+		for (int b = 0; b < BUCKETS; b++) {
+			StringBuilder bar = new StringBuilder();
+			for (int i = 0; i < (long) counts[b] * BARWIDTH / highest; i++) bar.append('#');
+			String limit = (b == BUCKETS - 1) ? ">=" : "< ";
+			double edge = (b == BUCKETS - 1) ? min + b * width : min + (b + 1) * width;
+			System.out.println(String.format("  %s %9.1f %s %8d %s", limit, edge / unit, unitName, counts[b], bar));
+		}
+	}
+
+	/**
+	 * Prints all results.
+	 * @param wallTime Time needed for complete evaluation in nanoseconds.
+	 * @param threads Number of threads used.
+	 */
+	private void printResults(long wallTime, int threads) {
+		int scrambles = totals.length;
+		int failures = 0;
+		for (boolean f : failed) if (f) failures++;
+
+		System.out.println(String.format("%-20s %9s %9s %9s %9s %9s %9s %9s", "moves", "mean", "min", "p50", "p90", "p99", "p99.9", "max"));
+		for (int s = 0; s < CubeAlgorithm.STAGES.length; s++) {
+			long[] values = new long[scrambles];
+			for (int k = 0; k < scrambles; k++) values[k] = lengths[s][k];
+			printDistribution(CubeAlgorithm.STAGES[s], values, 1);
+		}
+		long[] values = new long[scrambles];
+		for (int k = 0; k < scrambles; k++) values[k] = saved[k];
+		printDistribution("saved afterwards", values, 1);
+		values = new long[scrambles];
+		for (int k = 0; k < scrambles; k++) values[k] = totals[k];
+		printDistribution("total", values, 1);
+		printHistogram("Solution length:", values, 1, "moves");
+
+		System.out.println();
+		System.out.println(String.format("%-20s %9s %9s %9s %9s %9s %9s %9s", "robot time [s]", "mean", "min", "p50", "p90", "p99", "p99.9", "max"));
+		printDistribution("total", applyTimes.clone(), 1000);
+
+		System.out.println();
+		long[] sortedTimes = times.clone();
+		System.out.println(String.format("%-20s %9s %9s %9s %9s %9s %9s %9s", "solve time [us]", "mean", "min", "p50", "p90", "p99", "p99.9", "max"));
+		printDistribution("total", sortedTimes, 1000);
+		printHistogram("Solve time:", sortedTimes, 1000, "us");
+
+		System.out.println();
+		System.out.println(scrambles + " scrambles (" + failures + " not solved) on " + threads + " threads in "
+				+ String.format("%.2f s, %.0f solves/s", wallTime / 1e9, scrambles / (wallTime / 1e9)));
+	}
+
+	/**
+	 * Parses arguments, runs evaluation and prints results.
+	 * @param args Optional "-scrambles n", "-seed n", "-threads n", "-orientations", "-beam width" and "-budget ms".
+	 */
+	public static void main(String[] args) {
+		int scrambles = 20000;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean orientations = false;
+		int beamWidth = 0;
+		long budget = 1000;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-orientations")) orientations = true;
+			else if (i + 1 < args.length) {
+				if (args[i].equals("-scrambles")) scrambles = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+				else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-beam")) beamWidth = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-budget")) budget = Long.parseLong(args[++i]);
+			}
+		}
+
+		SolverEvaluation evaluation = new SolverEvaluation(scrambles, orientations, beamWidth, budget);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		pool.invoke(evaluation.new Worker(0, scrambles, new SplitMixRandom(seed)));
+		long wallTime = System.nanoTime() - start;
+		pool.shutdown();
+		evaluation.printResults(wallTime, threads);
+	}
+}
@@ -0,0 +1,21 @@
+package solver;
+
+/**
+ * Receives events of the cube model and the solving algorithm.
+ * The solver itself has no user interface; the EV3 program shows these events on the display, other programs may log or ignore them.
+ */
+public interface SolverListener {
+	
+	/**
+	 * Called after a solving stage was applied and the solution was shortened.
+	 * @param stage Number of stage (index in CubeAlgorithm.STAGES).
+	 * @param cube Cube-representation after the stage.
+	 */
+	void stageFinished(int stage, RubiksCube cube);
+	
+	/**
+	 * Called when the cube model or the algorithm runs into an inconsistent state (e.g. an unsolvable scramble).
+	 * @param message Short description of the problem.
+	 */
+	void warning(String message);
+}
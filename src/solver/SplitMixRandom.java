@@ -0,0 +1,101 @@
+package solver;
+
+/**
+ * Small, fast pseudo random generator (SplitMix64) that can be split into independent generators.
+ * Same seed always gives the same sequence, so scrambles can be reproduced. Parallel workers each get their own generator
+ * from split() and don't share any state, so results don't depend on how work is distributed between threads.
+ * Objects of this class are not thread-safe, every thread has to use its own generator.
+ */
+public class SplitMixRandom {
+
+	/**
+	 * Default increment, odd 64-bit fraction of the golden ratio.
+	 */
+	private static final long GOLDENGAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Current state, increased by gamma for every generated value.
+	 */
+	private long seed;
+
+	/**
+	 * Increment of this generator (always odd). Split generators get their own gamma.
+	 */
+	private final long gamma;
+
+	/**
+	 * Constructor that creates a generator with given seed.
+	 * @param seed Seed of the generator.
+	 */
+	public SplitMixRandom(long seed) {
+		this(seed, GOLDENGAMMA);
+	}
+
+	/**
+	 * Constructor that creates a generator with given state and increment.
+	 * @param seed Initial state.
+	 * @param gamma Increment (has to be odd).
+	 */
+	private SplitMixRandom(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Finalizer of SplitMix64 (variant 13 of Stafford's mixers).
+	 * @param z Value to mix.
+	 * @return Mixed value.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Creates increment for a split generator. Increments with too few bit changes give poorly mixed sequences and are altered.
+	 * @param z Random value.
+	 * @return Odd increment.
+	 */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xAAAAAAAAAAAAAAAAL : z;
+	}
+
+	/**
+	 * Returns next random 64-bit value.
+	 * @return Random long.
+	 */
+	public long nextLong() {
+		seed += gamma;
+		return mix64(seed);
+	}
+
+	/**
+	 * Returns random integer between 0 (inclusive) and bound (exclusive), without modulo bias.
+	 * @param bound Upper bound (has to be positive).
+	 * @return Random integer.
+	 */
+	public int nextInt(int bound) {
+		int r = (int)(nextLong() >>> 33);
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			return (int)((bound * (long) r) >>> 31);
+		}
+		for (int u = r; u - (r = u % bound) + m < 0; u = (int)(nextLong() >>> 33));
+		return r;
+	}
+
+	/**
+	 * Creates a new generator whose sequence is independent of this one. This generator advances by two values.
+	 * @return New SplitMixRandom object.
+	 */
+	public SplitMixRandom split() {
+		long newSeed = nextLong();
+		seed += gamma;
+		return new SplitMixRandom(newSeed, mixGamma(seed));
+	}
+}
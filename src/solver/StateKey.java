@@ -0,0 +1,55 @@
+package solver;
+
+/**
+ * Identifies a CubeState (including the orientation of the whole cube) by two numbers, see CubeState.cornerKey() and CubeState.edgeKey().
+ * Used as key of hash maps.
+ */
+public final class StateKey implements Comparable<StateKey> {
+
+	/**
+	 * Key of corners and rotations.
+	 */
+	protected final long corners;
+
+	/**
+	 * Key of edges.
+	 */
+	protected final long edges;
+
+	/**
+	 * Constructor that reads keys of a state.
+	 * @param state CubeState object.
+	 */
+	protected StateKey(CubeState state) {
+		this(state.cornerKey(), state.edgeKey());
+	}
+
+	/**
+	 * Constructor that sets both keys.
+	 * @param corners Key of corners and rotations.
+	 * @param edges Key of edges.
+	 */
+	protected StateKey(long corners, long edges) {
+		this.corners = corners;
+		this.edges = edges;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof StateKey)) return false;
+		return corners == ((StateKey) other).corners && edges == ((StateKey) other).edges;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = corners * 0x9E3779B97F4A7C15L ^ edges;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	@Override
+	public int compareTo(StateKey other) {
+		if (corners != other.corners) return (corners < other.corners) ? -1 : 1;
+		if (edges != other.edges) return (edges < other.edges) ? -1 : 1;
+		return 0;
+	}
+}